@@ -0,0 +1,57 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+public class BookVersion {
+    private static final int SPIN_ATTEMPTS = 4;
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile long version;
+    private int writeDepth;
+    private long writeStamp;
+
+    public void beginWrite() {
+        if (writeDepth++ == 0) {
+            writeStamp = lock.writeLock();
+            version = version + 1;
+        }
+    }
+
+    public void endWrite() {
+        if (--writeDepth == 0) {
+            version = version + 1;
+            lock.unlockWrite(writeStamp);
+        }
+    }
+
+    public boolean isAt(long expected) {
+        return version == expected;
+    }
+
+    public <T> T read(LongFunction<T> reader) {
+        for (int attempt = 0; ; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.apply(version);
+                    if (lock.validate(stamp))
+                        return result;
+                } catch (RuntimeException ex) {
+                    if (lock.validate(stamp))
+                        throw ex;
+                }
+            }
+            backOff(attempt);
+        }
+    }
+
+    private static void backOff(int attempt) {
+        if (attempt < SPIN_ATTEMPTS)
+            Thread.onSpinWait();
+        else
+            LockSupport.parkNanos(1_000L << Math.min(attempt - SPIN_ATTEMPTS, MAX_BACKOFF_SHIFT));
+    }
+}
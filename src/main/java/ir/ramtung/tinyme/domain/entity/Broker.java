@@ -14,20 +14,31 @@ public class Broker {
     private long brokerId;
     @Getter
     private String name;
-    @Getter
     private long credit;
 
-    public void increaseCreditBy(long amount) {
+    public synchronized long getCredit() {
+        return credit;
+    }
+
+    public synchronized void increaseCreditBy(long amount) {
         assert amount >= 0;
         credit += amount;
     }
 
-    public void decreaseCreditBy(long amount) {
+    public synchronized void decreaseCreditBy(long amount) {
+        assert amount >= 0;
+        credit -= amount;
+    }
+
+    public synchronized boolean tryDecreaseCreditBy(long amount) {
         assert amount >= 0;
+        if (credit < amount)
+            return false;
         credit -= amount;
+        return true;
     }
 
-    public boolean hasEnoughCredit(long amount) {
+    public synchronized boolean hasEnoughCredit(long amount) {
         return credit >= amount;
     }
 }
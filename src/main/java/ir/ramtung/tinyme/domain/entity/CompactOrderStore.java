@@ -0,0 +1,176 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Arrays;
+
+public class CompactOrderStore implements OrderStore {
+    private static final int SLOT_BYTES = 4 * Long.BYTES + 5 * Integer.BYTES + LINKS * Integer.BYTES + Integer.BYTES;
+
+    private Order[] orders;
+    private long[] orderIds;
+    private long[] brokerIds;
+    private long[] shareholderIds;
+    private long[] entryNanos;
+    private int[] keys;
+    private int[] prices;
+    private int[] peakSizes;
+    private int[] quantities;
+    private int[] totalQuantities;
+    private int[] links;
+
+    private int freeHead = NIL;
+    private int highWaterMark = 0;
+    private int size = 0;
+
+    public CompactOrderStore() {
+        this(64);
+    }
+
+    public CompactOrderStore(int initialCapacity) {
+        orders = new Order[initialCapacity];
+        orderIds = new long[initialCapacity];
+        brokerIds = new long[initialCapacity];
+        shareholderIds = new long[initialCapacity];
+        entryNanos = new long[initialCapacity];
+        keys = new int[initialCapacity];
+        prices = new int[initialCapacity];
+        peakSizes = new int[initialCapacity];
+        quantities = new int[initialCapacity];
+        totalQuantities = new int[initialCapacity];
+        links = new int[initialCapacity * LINKS];
+    }
+
+    @Override
+    public int allocate(Order order, int key) {
+        int slot = freeHead != NIL ? freeHead : highWaterMark;
+        if (slot == freeHead)
+            freeHead = links[slot * LINKS + NEXT];
+        else {
+            if (highWaterMark == orders.length)
+                grow();
+            highWaterMark++;
+        }
+        orders[slot] = order;
+        orderIds[slot] = order.getOrderId();
+        brokerIds[slot] = order.getBroker() == null ? 0 : order.getBroker().getBrokerId();
+        shareholderIds[slot] = order.getShareholder() == null ? 0 : order.getShareholder().getShareholderId();
+        entryNanos[slot] = order.getEntryNanos();
+        keys[slot] = key;
+        prices[slot] = order.getPrice();
+        quantities[slot] = 0;
+        Arrays.fill(links, slot * LINKS, (slot + 1) * LINKS, NIL);
+        refresh(slot);
+        size++;
+        return slot;
+    }
+
+    @Override
+    public void free(int slot) {
+        if (slot < 0 || slot >= highWaterMark || orders[slot] == null)
+            throw new IllegalStateException("Slot " + slot + " is not allocated");
+        orders[slot] = null;
+        Arrays.fill(links, slot * LINKS, (slot + 1) * LINKS, NIL);
+        links[slot * LINKS + NEXT] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    @Override
+    public int refresh(int slot) {
+        Order order = orders[slot];
+        int previous = quantities[slot];
+        quantities[slot] = order.getQuantity();
+        totalQuantities[slot] = order.getTotalQuantity();
+        peakSizes[slot] = order instanceof IcebergOrder icebergOrder ? icebergOrder.getPeakSize() : 0;
+        return quantities[slot] - previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return orders.length;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) SLOT_BYTES * orders.length;
+    }
+
+    @Override
+    public Order order(int slot) {
+        return orders[slot];
+    }
+
+    @Override
+    public long orderId(int slot) {
+        return orderIds[slot];
+    }
+
+    @Override
+    public long brokerId(int slot) {
+        return brokerIds[slot];
+    }
+
+    @Override
+    public long shareholderId(int slot) {
+        return shareholderIds[slot];
+    }
+
+    @Override
+    public long entryNanos(int slot) {
+        return entryNanos[slot];
+    }
+
+    @Override
+    public int key(int slot) {
+        return keys[slot];
+    }
+
+    @Override
+    public int price(int slot) {
+        return prices[slot];
+    }
+
+    @Override
+    public int peakSize(int slot) {
+        return peakSizes[slot];
+    }
+
+    @Override
+    public int quantity(int slot) {
+        return quantities[slot];
+    }
+
+    @Override
+    public int totalQuantity(int slot) {
+        return totalQuantities[slot];
+    }
+
+    @Override
+    public int link(int slot, int link) {
+        return links[slot * LINKS + link];
+    }
+
+    @Override
+    public void setLink(int slot, int link, int target) {
+        links[slot * LINKS + link] = target;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, orders.length * 2);
+        orders = Arrays.copyOf(orders, capacity);
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        brokerIds = Arrays.copyOf(brokerIds, capacity);
+        shareholderIds = Arrays.copyOf(shareholderIds, capacity);
+        entryNanos = Arrays.copyOf(entryNanos, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        peakSizes = Arrays.copyOf(peakSizes, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        totalQuantities = Arrays.copyOf(totalQuantities, capacity);
+        links = Arrays.copyOf(links, capacity * LINKS);
+    }
+}
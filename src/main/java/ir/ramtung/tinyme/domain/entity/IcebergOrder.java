@@ -14,14 +14,18 @@ public class IcebergOrder extends Order {
     int peakSize;
     int displayedQuantity;
 
-    public IcebergOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int peakSize, int displayedQuantity, OrderStatus status, int minimumExecutionQuantity) {
-        super(orderId, security, side, quantity, price, broker, shareholder, entryTime, status, minimumExecutionQuantity);
+    public IcebergOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, long entryNanos, int peakSize, int displayedQuantity, OrderStatus status, int minimumExecutionQuantity) {
+        super(orderId, security, side, quantity, price, broker, shareholder, entryNanos, status, minimumExecutionQuantity);
         this.peakSize = peakSize;
         this.displayedQuantity = displayedQuantity;
     }
 
+    public IcebergOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int peakSize, int displayedQuantity, OrderStatus status, int minimumExecutionQuantity) {
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), peakSize, displayedQuantity, status, minimumExecutionQuantity);
+    }
+
     public IcebergOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int peakSize, OrderStatus status, int minimumExecutionQuantity) {
-        this(orderId, security, side, quantity, price, broker, shareholder, entryTime, peakSize, Math.min(peakSize, quantity), status, minimumExecutionQuantity);
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), peakSize, Math.min(peakSize, quantity), status, minimumExecutionQuantity);
     }
 
     public IcebergOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int peakSize, int minimumExecutionQuantity) {
@@ -36,12 +40,17 @@ public class IcebergOrder extends Order {
 
     @Override
     public Order snapshot() {
-        return new IcebergOrder(orderId, security, side, quantity, price, broker, shareholder, entryTime, peakSize, OrderStatus.SNAPSHOT, minimumExecutionQuantity);
+        return new IcebergOrder(orderId, security, side, quantity, price, broker, shareholder, entryNanos, peakSize, Math.min(peakSize, quantity), OrderStatus.SNAPSHOT, minimumExecutionQuantity).withTimeInForce(timeInForce, expiryNanos).withRequestId(requestId);
+    }
+
+    @Override
+    public Order copy() {
+        return new IcebergOrder(orderId, security, side, quantity, price, broker, shareholder, entryNanos, peakSize, displayedQuantity, OrderStatus.SNAPSHOT, minimumExecutionQuantity).withTimeInForce(timeInForce, expiryNanos).withRequestId(requestId);
     }
 
     @Override
     public Order snapshotWithQuantity(int newQuantity) {
-        return new IcebergOrder(orderId, security, side, newQuantity, price, broker, shareholder, entryTime, peakSize, OrderStatus.SNAPSHOT, minimumExecutionQuantity);
+        return new IcebergOrder(orderId, security, side, newQuantity, price, broker, shareholder, entryNanos, peakSize, Math.min(peakSize, newQuantity), OrderStatus.SNAPSHOT, minimumExecutionQuantity).withTimeInForce(timeInForce, expiryNanos).withRequestId(requestId);
     }
 
     @Override
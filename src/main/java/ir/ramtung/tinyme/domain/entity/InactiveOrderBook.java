@@ -5,7 +5,7 @@ import java.util.LinkedList;
 public class InactiveOrderBook extends OrderBook {
 
     public InactiveOrderBook() {
-        super();
+        super(order -> ((StopLimitOrder) order).getStopPrice(), false);
     }
 
     public StopLimitOrder checkFirstInactiveOrder(Side side, int lastTransactionPrice) {
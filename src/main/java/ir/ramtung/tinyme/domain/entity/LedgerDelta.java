@@ -0,0 +1,34 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class LedgerDelta {
+    private final LinkedHashMap<Broker, Long> creditByBroker = new LinkedHashMap<>();
+    private final List<Trade> trades = new ArrayList<>();
+
+    public void addCredit(Broker broker, long amount) {
+        creditByBroker.merge(broker, amount, Long::sum);
+    }
+
+    public void addTrades(List<Trade> trades) {
+        this.trades.addAll(trades);
+    }
+
+    public List<Trade> getTrades() {
+        return trades;
+    }
+
+    public void apply() {
+        creditByBroker.forEach((broker, amount) -> {
+            if (amount >= 0)
+                broker.increaseCreditBy(amount);
+            else
+                broker.decreaseCreditBy(-amount);
+        });
+        PositionLedger.applyTrades(trades);
+        creditByBroker.clear();
+        trades.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Arrays;
+
+final class LongIntMap {
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (values[i] == MISSING)
+                return MISSING;
+            if (keys[i] == key)
+                return values[i];
+        }
+    }
+
+    void put(long key, int value) {
+        int i = index(key);
+        while (values[i] != MISSING && keys[i] != key)
+            i = (i + 1) & mask;
+        if (values[i] == MISSING) {
+            if (++size * 2 > keys.length) {
+                grow();
+                put(key, value);
+                return;
+            }
+            keys[i] = key;
+        }
+        values[i] = value;
+    }
+
+    void remove(long key) {
+        int hole = index(key);
+        while (values[hole] != MISSING && keys[hole] != key)
+            hole = (hole + 1) & mask;
+        if (values[hole] == MISSING)
+            return;
+        for (int i = (hole + 1) & mask; values[i] != MISSING; i = (i + 1) & mask) {
+            int home = index(keys[i]);
+            boolean staysPut = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!staysPut) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = MISSING;
+        size--;
+    }
+
+    long footprintBytes() {
+        return keys.length * (long) (Long.BYTES + Integer.BYTES);
+    }
+
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldValues[i] != MISSING)
+                put(oldKeys[i], oldValues[i]);
+    }
+}
@@ -0,0 +1,56 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class MarketDepth {
+    public enum Action {
+        ADD, CHANGE, DELETE
+    }
+
+    public record Update(long sequence, Side side, Action action, PriceLevel level) {
+    }
+
+    private final HashMap<Integer, PriceLevel> publishedBids = new HashMap<>();
+    private final HashMap<Integer, PriceLevel> publishedAsks = new HashMap<>();
+    private long sequence;
+    private int updatesSinceSnapshot;
+
+    public synchronized List<Update> collectUpdates(OrderBook orderBook) {
+        List<Update> updates = new ArrayList<>();
+        collectUpdates(orderBook, Side.BUY, publishedBids, updates);
+        collectUpdates(orderBook, Side.SELL, publishedAsks, updates);
+        updatesSinceSnapshot += updates.size();
+        return updates;
+    }
+
+    private void collectUpdates(OrderBook orderBook, Side side, HashMap<Integer, PriceLevel> published, List<Update> updates) {
+        OrderQueue queue = orderBook.getQueue(side);
+        for (int price : queue.drainChangedKeys()) {
+            PriceLevel current = queue.level(price);
+            PriceLevel previous = published.get(price);
+            if (current == null && previous != null) {
+                published.remove(price);
+                updates.add(new Update(++sequence, side, Action.DELETE, new PriceLevel(price, 0, 0)));
+            } else if (current != null && previous == null) {
+                published.put(price, current);
+                updates.add(new Update(++sequence, side, Action.ADD, current));
+            } else if (current != null && !current.equals(previous)) {
+                published.put(price, current);
+                updates.add(new Update(++sequence, side, Action.CHANGE, current));
+            }
+        }
+    }
+
+    public synchronized boolean isSnapshotDue(int snapshotInterval) {
+        if (snapshotInterval <= 0 || updatesSinceSnapshot < snapshotInterval)
+            return false;
+        updatesSinceSnapshot = 0;
+        return true;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,167 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class OffHeapOrderStore implements OrderStore {
+    private static final int ORDER_ID = 0;
+    private static final int BROKER_ID = 8;
+    private static final int SHAREHOLDER_ID = 16;
+    private static final int ENTRY_NANOS = 24;
+    private static final int KEY = 32;
+    private static final int PRICE = 36;
+    private static final int PEAK_SIZE = 40;
+    private static final int QUANTITY = 44;
+    private static final int TOTAL_QUANTITY = 48;
+    private static final int LINK_BASE = 52;
+    private static final int RECORD_SIZE = LINK_BASE + LINKS * Integer.BYTES;
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+    private Order[] orders = new Order[64];
+
+    private int freeHead = NIL;
+    private int highWaterMark = 0;
+    private int size = 0;
+
+    @Override
+    public int allocate(Order order, int key) {
+        int slot = freeHead != NIL ? freeHead : highWaterMark;
+        if (slot == freeHead)
+            freeHead = link(slot, NEXT);
+        else {
+            if (highWaterMark == chunks.size() * CHUNK_RECORDS)
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder()));
+            if (highWaterMark == orders.length)
+                orders = Arrays.copyOf(orders, orders.length * 2);
+            highWaterMark++;
+        }
+        orders[slot] = order;
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        chunk.putLong(base + ORDER_ID, order.getOrderId());
+        chunk.putLong(base + BROKER_ID, order.getBroker() == null ? 0 : order.getBroker().getBrokerId());
+        chunk.putLong(base + SHAREHOLDER_ID, order.getShareholder() == null ? 0 : order.getShareholder().getShareholderId());
+        chunk.putLong(base + ENTRY_NANOS, order.getEntryNanos());
+        chunk.putInt(base + KEY, key);
+        chunk.putInt(base + PRICE, order.getPrice());
+        chunk.putInt(base + QUANTITY, 0);
+        for (int link = 0; link < LINKS; link++)
+            setLink(slot, link, NIL);
+        refresh(slot);
+        size++;
+        return slot;
+    }
+
+    @Override
+    public void free(int slot) {
+        if (slot < 0 || slot >= highWaterMark || orders[slot] == null)
+            throw new IllegalStateException("Slot " + slot + " is not allocated");
+        orders[slot] = null;
+        for (int link = 0; link < LINKS; link++)
+            setLink(slot, link, NIL);
+        setLink(slot, NEXT, freeHead);
+        freeHead = slot;
+        size--;
+    }
+
+    @Override
+    public int refresh(int slot) {
+        Order order = orders[slot];
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        int previous = chunk.getInt(base + QUANTITY);
+        chunk.putInt(base + QUANTITY, order.getQuantity());
+        chunk.putInt(base + TOTAL_QUANTITY, order.getTotalQuantity());
+        chunk.putInt(base + PEAK_SIZE, order instanceof IcebergOrder icebergOrder ? icebergOrder.getPeakSize() : 0);
+        return order.getQuantity() - previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return chunks.size() * CHUNK_RECORDS;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) capacity() * RECORD_SIZE + (long) orders.length * Integer.BYTES;
+    }
+
+    @Override
+    public Order order(int slot) {
+        return orders[slot];
+    }
+
+    @Override
+    public long orderId(int slot) {
+        return chunk(slot).getLong(offset(slot) + ORDER_ID);
+    }
+
+    @Override
+    public long brokerId(int slot) {
+        return chunk(slot).getLong(offset(slot) + BROKER_ID);
+    }
+
+    @Override
+    public long shareholderId(int slot) {
+        return chunk(slot).getLong(offset(slot) + SHAREHOLDER_ID);
+    }
+
+    @Override
+    public long entryNanos(int slot) {
+        return chunk(slot).getLong(offset(slot) + ENTRY_NANOS);
+    }
+
+    @Override
+    public int key(int slot) {
+        return chunk(slot).getInt(offset(slot) + KEY);
+    }
+
+    @Override
+    public int price(int slot) {
+        return chunk(slot).getInt(offset(slot) + PRICE);
+    }
+
+    @Override
+    public int peakSize(int slot) {
+        return chunk(slot).getInt(offset(slot) + PEAK_SIZE);
+    }
+
+    @Override
+    public int quantity(int slot) {
+        return chunk(slot).getInt(offset(slot) + QUANTITY);
+    }
+
+    @Override
+    public int totalQuantity(int slot) {
+        return chunk(slot).getInt(offset(slot) + TOTAL_QUANTITY);
+    }
+
+    @Override
+    public int link(int slot, int link) {
+        return chunk(slot).getInt(offset(slot) + LINK_BASE + link * Integer.BYTES);
+    }
+
+    @Override
+    public void setLink(int slot, int link, int target) {
+        chunk(slot).putInt(offset(slot) + LINK_BASE + link * Integer.BYTES, target);
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_SIZE;
+    }
+}
@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.domain.entity;
 
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -21,69 +22,103 @@ public class Order {
     protected Broker broker;
     protected Shareholder shareholder;
     @Builder.Default
-    protected LocalDateTime entryTime = LocalDateTime.now();
+    protected long entryNanos = EngineClock.current().nanos();
     @Builder.Default
     protected OrderStatus status = OrderStatus.NEW;
     protected int minimumExecutionQuantity;
     protected boolean isNew = true;
+    @Builder.Default
+    protected TimeInForce timeInForce = TimeInForce.GTC;
+    protected long expiryNanos;
+    @EqualsAndHashCode.Exclude
+    protected long requestId;
 
-    public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, OrderStatus status, int minimumExecutionQuantity, boolean isNew) {
+    public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, long entryNanos, OrderStatus status, int minimumExecutionQuantity, boolean isNew, TimeInForce timeInForce, long expiryNanos, long requestId) {
+        this(orderId, security, side, quantity, price, broker, shareholder, entryNanos, status, minimumExecutionQuantity, isNew);
+        this.timeInForce = timeInForce;
+        this.expiryNanos = expiryNanos;
+        this.requestId = requestId;
+    }
+
+    public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, long entryNanos, OrderStatus status, int minimumExecutionQuantity, boolean isNew) {
         this.orderId = orderId;
         this.security = security;
         this.side = side;
         this.quantity = quantity;
         this.price = price;
-        this.entryTime = entryTime;
+        this.entryNanos = entryNanos;
         this.broker = broker;
         this.shareholder = shareholder;
         this.status = status;
         this.minimumExecutionQuantity = minimumExecutionQuantity;
         this.isNew = isNew;
+        this.timeInForce = TimeInForce.GTC;
+    }
+
+    public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, OrderStatus status, int minimumExecutionQuantity, boolean isNew) {
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), status, minimumExecutionQuantity, isNew);
+    }
+
+    public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, long entryNanos, OrderStatus status, int minimumExecutionQuantity) {
+        this(orderId, security, side, quantity, price, broker, shareholder, entryNanos, status, minimumExecutionQuantity, true);
     }
 
     public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, OrderStatus status, int minimumExecutionQuantity) {
-        this.orderId = orderId;
-        this.security = security;
-        this.side = side;
-        this.quantity = quantity;
-        this.price = price;
-        this.entryTime = entryTime;
-        this.broker = broker;
-        this.shareholder = shareholder;
-        this.status = status;
-        this.minimumExecutionQuantity = minimumExecutionQuantity;
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), status, minimumExecutionQuantity);
     }
 
     public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int minimumExecutionQuantity) {
-        this.orderId = orderId;
-        this.security = security;
-        this.side = side;
-        this.quantity = quantity;
-        this.price = price;
-        this.entryTime = entryTime;
-        this.broker = broker;
-        this.shareholder = shareholder;
-        this.status = OrderStatus.NEW;
-        this.minimumExecutionQuantity = minimumExecutionQuantity;
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), OrderStatus.NEW, minimumExecutionQuantity);
     }
 
     public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, int minimumExecutionQuantity) {
-        this(orderId, security, side, quantity, price, broker, shareholder, LocalDateTime.now(), minimumExecutionQuantity);
+        this(orderId, security, side, quantity, price, broker, shareholder, EngineClock.current().nanos(), OrderStatus.NEW, minimumExecutionQuantity);
+    }
+
+    protected static long toEntryNanos(LocalDateTime entryTime) {
+        return entryTime == null ? EngineClock.current().nanos() : EngineClock.toEpochNanos(entryTime);
+    }
+
+    public LocalDateTime getEntryTime() {
+        return EngineClock.toLocalDateTime(entryNanos);
     }
 
     public Order snapshot() {
-        return new Order(orderId, security, side, quantity, price, broker, shareholder, entryTime, OrderStatus.SNAPSHOT, minimumExecutionQuantity);
+        return new Order(orderId, security, side, quantity, price, broker, shareholder, entryNanos, OrderStatus.SNAPSHOT, minimumExecutionQuantity).withTimeInForce(timeInForce, expiryNanos).withRequestId(requestId);
+    }
+
+    public Order copy() {
+        return snapshot();
     }
 
     public Order snapshotWithQuantity(int newQuantity) {
-        return new Order(orderId, security, side, newQuantity, price, broker, shareholder, entryTime, OrderStatus.SNAPSHOT, minimumExecutionQuantity);
+        return new Order(orderId, security, side, newQuantity, price, broker, shareholder, entryNanos, OrderStatus.SNAPSHOT, minimumExecutionQuantity).withTimeInForce(timeInForce, expiryNanos).withRequestId(requestId);
+    }
+
+    public Order withTimeInForce(TimeInForce timeInForce, long expiryNanos) {
+        this.timeInForce = timeInForce;
+        this.expiryNanos = expiryNanos;
+        return this;
+    }
+
+    public Order withRequestId(long requestId) {
+        this.requestId = requestId;
+        return this;
+    }
+
+    public boolean hasExpiry() {
+        return expiryNanos != 0;
     }
 
     public boolean matches(Order other) {
+        return matchesPrice(other.price);
+    }
+
+    public boolean matchesPrice(int otherPrice) {
         if (side == Side.BUY)
-            return price >= other.price;
+            return price >= otherPrice;
         else
-            return price <= other.price;
+            return price <= otherPrice;
     }
 
     public void decreaseQuantity(int amount) {
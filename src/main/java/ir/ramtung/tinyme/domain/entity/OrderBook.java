@@ -3,56 +3,63 @@ package ir.ramtung.tinyme.domain.entity;
 import lombok.Getter;
 
 import java.util.*;
+import java.util.function.ToIntFunction;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 @Getter
 public class OrderBook {
-    private final LinkedList<Order> buyQueue;
-    private final LinkedList<Order> sellQueue;
+    private final OrderQueue buyQueue;
+    private final OrderQueue sellQueue;
 
     public OrderBook() {
-        buyQueue = new LinkedList<>();
-        sellQueue = new LinkedList<>();
+        this(Order::getPrice, true);
+    }
+
+    protected OrderBook(ToIntFunction<Order> levelKey, boolean tracksChanges) {
+        buyQueue = new OrderQueue(levelKey, tracksChanges);
+        sellQueue = new OrderQueue(levelKey, tracksChanges);
     }
 
     public void enqueue(Order order) {
-        List<Order> queue = getQueue(order.getSide());
-        ListIterator<Order> it = queue.listIterator();
-        while (it.hasNext()) {
-            if (order.queuesBefore(it.next())) {
-                it.previous();
-                break;
-            }
-        }
         order.queue();
-        it.add(order);
+        getQueue(order.getSide()).insert(order);
     }
 
-    protected LinkedList<Order> getQueue(Side side) {
+    protected OrderQueue getQueue(Side side) {
         return side == Side.BUY ? buyQueue : sellQueue;
     }
 
+    public List<PriceLevel> levels(Side side) {
+        return getQueue(side).levels();
+    }
+
+    public TopOfBook topOfBook() {
+        return new TopOfBook(buyQueue.firstLevel(), sellQueue.firstLevel());
+    }
+
+    public List<Order> findOrders(Side side, Long brokerId, Long shareholderId) {
+        OrderQueue queue = getQueue(side);
+        if (brokerId != null)
+            return queue.findByBrokerId(brokerId).stream()
+                    .filter(order -> shareholderId == null || order.getShareholder().getShareholderId() == shareholderId)
+                    .toList();
+        if (shareholderId != null)
+            return queue.findByShareholderId(shareholderId);
+        return new ArrayList<>(queue);
+    }
+
+    public void markChanged(Order order) {
+        getQueue(order.getSide()).markChanged(order);
+    }
+
     public Order findByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        for (Order order : queue) {
-            if (order.getOrderId() == orderId)
-                return order;
-        }
-        return null;
+        return getQueue(side).findByOrderId(orderId);
     }
 
     public boolean removeByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        var it = queue.listIterator();
-        while (it.hasNext()) {
-            if (it.next().getOrderId() == orderId) {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
+        return getQueue(side).removeByOrderId(orderId);
     }
 
     public Order matchWithFirst(Order newOrder) {
@@ -63,8 +70,12 @@ public class OrderBook {
             return null;
     }
 
+    public boolean canFill(Order order) {
+        return getQueue(order.getSide().opposite()).totalQuantityWhile(order::matchesPrice, order.getQuantity()) >= order.getQuantity();
+    }
+
     public void putBack(Order order) {
-        LinkedList<Order> queue = getQueue(order.getSide());
+        OrderQueue queue = getQueue(order.getSide());
         order.queue();
         queue.addFirst(order);
     }
@@ -82,13 +93,14 @@ public class OrderBook {
         getQueue(side).removeFirst();
     }
 
+    public void moveFirstToLevelTail(Side side) {
+        getQueue(side).moveFirstToLevelTail();
+    }
+
     public Order getFirst(Side side) { return getQueue(side).getFirst(); }
 
     public int totalSellQuantityByShareholder(Shareholder shareholder) {
-        return sellQueue.stream()
-                .filter(order -> order.getShareholder().equals(shareholder))
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        return sellQueue.totalQuantityByShareholderId(shareholder.getShareholderId());
     }
 
     public OpeningRangeData findPriceBasedOnMaxTransaction() {
@@ -132,7 +144,7 @@ public class OrderBook {
                 break;
             else {
                 orderBook.buyQueue.add(buyOrder);
-                buyQueue.remove();
+                buyQueueIt.remove();
             }
         }
         while (sellQueueIt.hasNext()) {
@@ -141,7 +153,7 @@ public class OrderBook {
                 break;
             else{
                 orderBook.sellQueue.add(sellOrder);
-                sellQueue.remove();
+                sellQueueIt.remove();
             }
         }
         return orderBook;
@@ -0,0 +1,508 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+
+import static ir.ramtung.tinyme.domain.entity.OrderStore.*;
+
+public class OrderQueue extends AbstractSequentialList<Order> {
+    private final ToIntFunction<Order> levelKey;
+    private final OrderStore store;
+    private final LongIntMap slotByOrderId = new LongIntMap();
+    private final LongIntMap slotByBrokerId = new LongIntMap();
+    private final LongIntMap slotByShareholderId = new LongIntMap();
+    private final TreeMap<Integer, Level> levelByKey = new TreeMap<>();
+    private final LongIntMap firstSlotByKey = new LongIntMap();
+    private final boolean tracksChanges;
+    private final LinkedHashSet<Integer> changedKeys = new LinkedHashSet<>();
+    private Level[] levelBySlot = new Level[64];
+    private int head = NIL;
+    private int tail = NIL;
+
+    private static final class Level {
+        private final int key;
+        private int first = NIL;
+        private int last = NIL;
+        private int count;
+        private int quantity;
+
+        private Level(int key) {
+            this.key = key;
+        }
+    }
+
+    public OrderQueue(ToIntFunction<Order> levelKey) {
+        this(levelKey, false);
+    }
+
+    public OrderQueue(ToIntFunction<Order> levelKey, boolean tracksChanges) {
+        this(levelKey, tracksChanges, OrderStoreBackend.current().create());
+    }
+
+    public OrderQueue(ToIntFunction<Order> levelKey, boolean tracksChanges, OrderStore store) {
+        this.levelKey = levelKey;
+        this.tracksChanges = tracksChanges;
+        this.store = store;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    public Order getFirst() {
+        if (head == NIL)
+            throw new NoSuchElementException();
+        return store.order(head);
+    }
+
+    public Order getLast() {
+        if (tail == NIL)
+            throw new NoSuchElementException();
+        return store.order(tail);
+    }
+
+    public Order removeFirst() {
+        if (head == NIL)
+            throw new NoSuchElementException();
+        Order first = store.order(head);
+        unlink(head);
+        return first;
+    }
+
+    public void addFirst(Order order) {
+        link(order, head);
+    }
+
+    public void addLast(Order order) {
+        link(order, NIL);
+    }
+
+    public void insert(Order order) {
+        int key = levelKey.applyAsInt(order);
+        Level level = levelAt(key);
+        if (level != null) {
+            link(order, store.next(level.last));
+            return;
+        }
+        Map.Entry<Integer, Level> higher = levelByKey.higherEntry(key);
+        Map.Entry<Integer, Level> lower = levelByKey.lowerEntry(key);
+        if (higher != null && order.queuesBefore(store.order(higher.getValue().first)))
+            link(order, higher.getValue().first);
+        else if (lower != null && order.queuesBefore(store.order(lower.getValue().first)))
+            link(order, lower.getValue().first);
+        else
+            link(order, NIL);
+    }
+
+    public Order findByOrderId(long orderId) {
+        int slot = findSlot(orderId);
+        return slot == NIL ? null : store.order(slot);
+    }
+
+    public boolean removeByOrderId(long orderId) {
+        int slot = findSlot(orderId);
+        if (slot == NIL)
+            return false;
+        unlink(slot);
+        return true;
+    }
+
+    public PriceLevel level(int key) {
+        Level level = levelAt(key);
+        return level == null ? null : toPriceLevel(level);
+    }
+
+    public List<Order> findByBrokerId(long brokerId) {
+        return ordersOf(slotByBrokerId.get(brokerId), NEXT_BY_BROKER);
+    }
+
+    public List<Order> findByShareholderId(long shareholderId) {
+        return ordersOf(slotByShareholderId.get(shareholderId), NEXT_BY_SHAREHOLDER);
+    }
+
+    public int totalQuantityByShareholderId(long shareholderId) {
+        int first = slotByShareholderId.get(shareholderId);
+        int total = 0;
+        if (first != NIL) {
+            int slot = first;
+            do {
+                total += store.totalQuantity(slot);
+                slot = store.link(slot, NEXT_BY_SHAREHOLDER);
+            } while (slot != first);
+        }
+        return total;
+    }
+
+    private List<Order> ordersOf(int first, int nextLink) {
+        List<Order> orders = new ArrayList<>();
+        if (first != NIL) {
+            int slot = first;
+            do {
+                orders.add(store.order(slot));
+                slot = store.link(slot, nextLink);
+            } while (slot != first);
+        }
+        return orders;
+    }
+
+    public PriceLevel firstLevel() {
+        return head == NIL ? null : toPriceLevel(levelBySlot[head]);
+    }
+
+    public List<PriceLevel> levels() {
+        List<PriceLevel> levels = new ArrayList<>();
+        for (int slot = head; slot != NIL; ) {
+            Level level = levelBySlot[slot];
+            levels.add(toPriceLevel(level));
+            slot = store.next(level.last);
+        }
+        return levels;
+    }
+
+    public int totalQuantityWhile(IntPredicate matchesPrice, int wanted) {
+        int total = 0;
+        for (int slot = head; slot != NIL && total < wanted; slot = store.next(slot)) {
+            if (!matchesPrice.test(store.price(slot)))
+                break;
+            total += store.totalQuantity(slot);
+        }
+        return total;
+    }
+
+    public void markChanged(int key) {
+        if (tracksChanges)
+            changedKeys.add(key);
+    }
+
+    public void markChanged(Order order) {
+        int slot = findSlot(order);
+        if (slot == NIL)
+            return;
+        levelBySlot[slot].quantity += store.refresh(slot);
+        markChanged(store.key(slot));
+    }
+
+    public List<Integer> drainChangedKeys() {
+        List<Integer> keys = new ArrayList<>(changedKeys);
+        changedKeys.clear();
+        return keys;
+    }
+
+    private Level levelAt(int key) {
+        int slot = firstSlotByKey.get(key);
+        return slot == NIL ? null : levelBySlot[slot];
+    }
+
+    private void setFirst(Level level, int slot) {
+        if (firstSlotByKey.get(level.key) == level.first)
+            firstSlotByKey.put(level.key, slot);
+        level.first = slot;
+    }
+
+    private PriceLevel toPriceLevel(Level level) {
+        return new PriceLevel(level.key, level.quantity, level.count);
+    }
+
+    public void moveFirstToLevelTail() {
+        if (head == NIL)
+            throw new NoSuchElementException();
+        int first = head;
+        int levelTail = levelBySlot[first].last;
+        if (levelTail != first) {
+            int successor = store.next(levelTail);
+            unlinkSlot(first);
+            linkSlot(first, successor);
+        }
+        levelBySlot[first].quantity += store.refresh(first);
+        markChanged(store.key(first));
+    }
+
+    @Override
+    public ListIterator<Order> listIterator(int index) {
+        if (index < 0 || index > size())
+            throw new IndexOutOfBoundsException(index);
+        return new Itr(index);
+    }
+
+    private int slot(int index) {
+        if (index < (size() >> 1)) {
+            int slot = head;
+            for (int i = 0; i < index; i++)
+                slot = store.next(slot);
+            return slot;
+        }
+        int slot = tail;
+        for (int i = size() - 1; i > index; i--)
+            slot = store.prev(slot);
+        return slot;
+    }
+
+    private int findSlot(long orderId) {
+        int slot = slotByOrderId.get(orderId);
+        if (slot == NIL || store.link(slot, NEXT_SAME_ID) == NIL)
+            return slot;
+        return scan(orderId);
+    }
+
+    private int findSlot(Order order) {
+        int slot = findSlot(order.getOrderId());
+        if (slot == NIL || store.order(slot) == order)
+            return slot;
+        for (slot = head; slot != NIL; slot = store.next(slot))
+            if (store.order(slot) == order)
+                return slot;
+        return NIL;
+    }
+
+    private int scan(long orderId) {
+        for (int slot = head; slot != NIL; slot = store.next(slot)) {
+            if (store.orderId(slot) == orderId)
+                return slot;
+        }
+        return NIL;
+    }
+
+    private void link(Order order, int successor) {
+        int slot = store.allocate(order, levelKey.applyAsInt(order));
+        addToIdChain(slot);
+        linkSlot(slot, successor);
+        markChanged(store.key(slot));
+        if (order.getBroker() != null)
+            addToRing(slotByBrokerId, store.brokerId(slot), slot, NEXT_BY_BROKER, PREV_BY_BROKER);
+        if (order.getShareholder() != null)
+            addToRing(slotByShareholderId, store.shareholderId(slot), slot, NEXT_BY_SHAREHOLDER, PREV_BY_SHAREHOLDER);
+        if (order.hasExpiry())
+            order.getSecurity().armExpiry(order);
+    }
+
+    private void unlink(int slot) {
+        Order order = store.order(slot);
+        unlinkSlot(slot);
+        markChanged(store.key(slot));
+        if (order.getBroker() != null)
+            removeFromRing(slotByBrokerId, store.brokerId(slot), slot, NEXT_BY_BROKER, PREV_BY_BROKER);
+        if (order.getShareholder() != null)
+            removeFromRing(slotByShareholderId, store.shareholderId(slot), slot, NEXT_BY_SHAREHOLDER, PREV_BY_SHAREHOLDER);
+        if (order.hasExpiry())
+            order.getSecurity().disarmExpiry(order);
+        removeFromIdChain(slot);
+        store.free(slot);
+    }
+
+    private void addToIdChain(int slot) {
+        long orderId = store.orderId(slot);
+        int first = slotByOrderId.get(orderId);
+        if (first == NIL) {
+            slotByOrderId.put(orderId, slot);
+            return;
+        }
+        int last = first;
+        while (store.link(last, NEXT_SAME_ID) != NIL)
+            last = store.link(last, NEXT_SAME_ID);
+        store.setLink(last, NEXT_SAME_ID, slot);
+    }
+
+    private void removeFromIdChain(int slot) {
+        long orderId = store.orderId(slot);
+        int first = slotByOrderId.get(orderId);
+        int successor = store.link(slot, NEXT_SAME_ID);
+        if (first == slot) {
+            if (successor == NIL)
+                slotByOrderId.remove(orderId);
+            else
+                slotByOrderId.put(orderId, successor);
+            return;
+        }
+        int predecessor = first;
+        while (store.link(predecessor, NEXT_SAME_ID) != slot)
+            predecessor = store.link(predecessor, NEXT_SAME_ID);
+        store.setLink(predecessor, NEXT_SAME_ID, successor);
+    }
+
+    private void addToRing(LongIntMap firstById, long id, int slot, int nextLink, int prevLink) {
+        int first = firstById.get(id);
+        if (first == NIL) {
+            firstById.put(id, slot);
+            store.setLink(slot, nextLink, slot);
+            store.setLink(slot, prevLink, slot);
+            return;
+        }
+        int last = store.link(first, prevLink);
+        store.setLink(slot, nextLink, first);
+        store.setLink(slot, prevLink, last);
+        store.setLink(last, nextLink, slot);
+        store.setLink(first, prevLink, slot);
+    }
+
+    private void removeFromRing(LongIntMap firstById, long id, int slot, int nextLink, int prevLink) {
+        int successor = store.link(slot, nextLink);
+        int predecessor = store.link(slot, prevLink);
+        if (successor == slot) {
+            firstById.remove(id);
+            return;
+        }
+        store.setLink(predecessor, nextLink, successor);
+        store.setLink(successor, prevLink, predecessor);
+        if (firstById.get(id) == slot)
+            firstById.put(id, successor);
+    }
+
+    public long footprintBytes() {
+        return store.footprintBytes() + (long) levelBySlot.length * Integer.BYTES
+                + slotByOrderId.footprintBytes() + slotByBrokerId.footprintBytes() + slotByShareholderId.footprintBytes()
+                + firstSlotByKey.footprintBytes();
+    }
+
+    private void linkSlot(int slot, int successor) {
+        int predecessor = successor == NIL ? tail : store.prev(successor);
+        store.setLink(slot, PREV, predecessor);
+        store.setLink(slot, NEXT, successor);
+        if (predecessor == NIL)
+            head = slot;
+        else
+            store.setLink(predecessor, NEXT, slot);
+        if (successor == NIL)
+            tail = slot;
+        else
+            store.setLink(successor, PREV, slot);
+
+        int key = store.key(slot);
+        Level level;
+        if (predecessor != NIL && store.key(predecessor) == key)
+            level = levelBySlot[predecessor];
+        else if (successor != NIL && store.key(successor) == key)
+            level = levelBySlot[successor];
+        else {
+            level = new Level(key);
+            levelByKey.put(key, level);
+            firstSlotByKey.put(key, slot);
+        }
+        if (slot >= levelBySlot.length)
+            levelBySlot = Arrays.copyOf(levelBySlot, Math.max(slot + 1, levelBySlot.length * 2));
+        levelBySlot[slot] = level;
+        if (level.count == 0) {
+            level.first = slot;
+            level.last = slot;
+        } else {
+            if (level.last == predecessor)
+                level.last = slot;
+            if (level.first == successor)
+                setFirst(level, slot);
+        }
+        level.count++;
+        level.quantity += store.quantity(slot);
+    }
+
+    private void unlinkSlot(int slot) {
+        int predecessor = store.prev(slot);
+        int successor = store.next(slot);
+        if (predecessor == NIL)
+            head = successor;
+        else
+            store.setLink(predecessor, NEXT, successor);
+        if (successor == NIL)
+            tail = predecessor;
+        else
+            store.setLink(successor, PREV, predecessor);
+
+        Level level = levelBySlot[slot];
+        levelBySlot[slot] = null;
+        level.count--;
+        level.quantity -= store.quantity(slot);
+        if (level.count > 0) {
+            if (level.first == slot)
+                setFirst(level, successor);
+            if (level.last == slot)
+                level.last = predecessor;
+        } else if (levelByKey.remove(level.key, level))
+            firstSlotByKey.remove(level.key);
+        store.setLink(slot, PREV, NIL);
+        store.setLink(slot, NEXT, NIL);
+    }
+
+    private class Itr implements ListIterator<Order> {
+        private int lastReturned = NIL;
+        private int next;
+        private int nextIndex;
+
+        private Itr(int index) {
+            next = index == size() ? NIL : slot(index);
+            nextIndex = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size();
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = next;
+            next = store.next(next);
+            nextIndex++;
+            return store.order(lastReturned);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public Order previous() {
+            if (!hasPrevious())
+                throw new NoSuchElementException();
+            next = next == NIL ? tail : store.prev(next);
+            lastReturned = next;
+            nextIndex--;
+            return store.order(lastReturned);
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == NIL)
+                throw new IllegalStateException();
+            int lastNext = store.next(lastReturned);
+            unlink(lastReturned);
+            if (next == lastReturned)
+                next = lastNext;
+            else
+                nextIndex--;
+            lastReturned = NIL;
+        }
+
+        @Override
+        public void set(Order order) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(Order order) {
+            lastReturned = NIL;
+            link(order, next);
+            nextIndex++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public interface OrderStore {
+    int NIL = -1;
+
+    int NEXT = 0;
+    int PREV = 1;
+    int NEXT_SAME_ID = 2;
+    int NEXT_BY_BROKER = 3;
+    int PREV_BY_BROKER = 4;
+    int NEXT_BY_SHAREHOLDER = 5;
+    int PREV_BY_SHAREHOLDER = 6;
+    int LINKS = 7;
+
+    int allocate(Order order, int key);
+
+    void free(int slot);
+
+    int refresh(int slot);
+
+    int size();
+
+    int capacity();
+
+    long footprintBytes();
+
+    Order order(int slot);
+
+    long orderId(int slot);
+
+    long brokerId(int slot);
+
+    long shareholderId(int slot);
+
+    long entryNanos(int slot);
+
+    int key(int slot);
+
+    int price(int slot);
+
+    int peakSize(int slot);
+
+    int quantity(int slot);
+
+    int totalQuantity(int slot);
+
+    int link(int slot, int link);
+
+    void setLink(int slot, int link, int target);
+
+    default int next(int slot) {
+        return link(slot, NEXT);
+    }
+
+    default int prev(int slot) {
+        return link(slot, PREV);
+    }
+}
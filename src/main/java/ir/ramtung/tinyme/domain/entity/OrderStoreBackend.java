@@ -0,0 +1,28 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public enum OrderStoreBackend {
+    HEAP {
+        @Override
+        public OrderStore create() {
+            return new CompactOrderStore();
+        }
+    },
+    OFF_HEAP {
+        @Override
+        public OrderStore create() {
+            return new OffHeapOrderStore();
+        }
+    };
+
+    private static volatile OrderStoreBackend current = HEAP;
+
+    public static OrderStoreBackend current() {
+        return current;
+    }
+
+    public static void use(OrderStoreBackend backend) {
+        current = backend;
+    }
+
+    public abstract OrderStore create();
+}
@@ -0,0 +1,16 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.List;
+
+public final class PositionLedger {
+    private PositionLedger() {
+    }
+
+    public static void applyTrades(List<Trade> trades) {
+        for (Trade trade : trades) {
+            int securityId = trade.getSecurity().getId();
+            trade.getBuy().getShareholder().incPosition(securityId, trade.getQuantity());
+            trade.getSell().getShareholder().decPosition(securityId, trade.getQuantity());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import lombok.Getter;
+
+@Getter
+public class RequestContext {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private Order order;
+
+    public RequestContext resolve(Security security, Broker broker, Shareholder shareholder) {
+        this.security = security;
+        this.broker = broker;
+        this.shareholder = shareholder;
+        this.order = null;
+        return this;
+    }
+
+    public RequestContext target(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    public void clear() {
+        security = null;
+        broker = null;
+        shareholder = null;
+        order = null;
+    }
+}
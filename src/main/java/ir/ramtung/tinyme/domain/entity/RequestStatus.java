@@ -5,6 +5,7 @@ public enum RequestStatus {
     NOT_ENOUGH_CREDIT,
     NOT_ENOUGH_POSITIONS,
     NOT_ENOUGH_INITIAL_TRANSACTION,
+    NOT_FILLABLE,
     AUCTIONED,
     ACCEPTED,
     UPDATED,
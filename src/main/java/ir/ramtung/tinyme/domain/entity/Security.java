@@ -3,15 +3,22 @@ package ir.ramtung.tinyme.domain.entity;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import ir.ramtung.tinyme.domain.service.Matcher;
+import ir.ramtung.tinyme.domain.service.TradingSession;
 import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.request.MatchingState;
 import ir.ramtung.tinyme.messaging.request.OrderEntryType;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -20,6 +27,11 @@ import static java.lang.Math.abs;
 @Getter
 @Builder
 public class Security {
+    public static final int UNASSIGNED_ID = -1;
+    private static final long EXPIRY_TICK_NANOS = 1_000_000L;
+
+    @Builder.Default
+    private int id = UNASSIGNED_ID;
     private String isin;
     @Builder.Default
     private int tickSize = 1;
@@ -37,13 +49,30 @@ public class Security {
     private MatchingState state = MatchingState.CONTINUOUS;
     @Builder.Default
     private int openingPrice = 0;
+    @Builder.Default
+    private final MarketDepth marketDepth = new MarketDepth();
+    @Builder.Default
+    private volatile TopOfBook topOfBook = TopOfBook.EMPTY;
+    @Builder.Default
+    private final TradeStatistics tradeStatistics = new TradeStatistics();
+    @Builder.Default
+    private final BookVersion bookVersion = new BookVersion();
+    @Builder.Default
+    private final TimingWheel<Order> expiries = new TimingWheel<>(EXPIRY_TICK_NANOS, EngineClock.current().nanos());
+    @Builder.Default
+    private final IdentityHashMap<Order, TimingWheel.Timeout<Order>> expiryTimeouts = new IdentityHashMap<>();
+
 
+    public SecurityStatus newOrder(EnterOrderRq enterOrderRq, RequestContext context, Matcher matcher) throws InvalidRequestException {
+        return newOrder(enterOrderRq, context.getBroker(), context.getShareholder(), matcher);
+    }
 
     public SecurityStatus newOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, Matcher matcher) throws InvalidRequestException {
         if (enterOrderRq.getSide() == Side.SELL &&
                 !shareholder.hasEnoughPositionsOn(this,
                 orderBook.totalSellQuantityByShareholder(shareholder) + enterOrderRq.getQuantity()))
             return SecurityStatus.notEnoughPositions();
+        long expiryNanos = expiryNanosOf(enterOrderRq);
         Order order;
         if (enterOrderRq.getPeakSize() == 0 && enterOrderRq.getStopPrice() == 0)
             order = new Order(enterOrderRq.getOrderId(), this, enterOrderRq.getSide(),
@@ -57,6 +86,7 @@ public class Security {
                     enterOrderRq.getQuantity(), enterOrderRq.getPrice(), broker, shareholder,
                     enterOrderRq.getEntryTime(), enterOrderRq.getMinimumExecutionQuantity(),
                     enterOrderRq.getStopPrice(), enterOrderRq.getRequestId());
+            stopLimitOrder.withTimeInForce(enterOrderRq.getTimeInForce(), expiryNanos);
             if ( (stopLimitOrder.getSide() == Side.BUY && stopLimitOrder.getStopPrice() <= lastTransactionPrice) || (stopLimitOrder.getSide() == Side.SELL && stopLimitOrder.getStopPrice() >= lastTransactionPrice) ){
                 order = stopLimitOrder;
             }
@@ -72,26 +102,85 @@ public class Security {
         }
         else
             throw new InvalidRequestException("Panic");
+        order.withTimeInForce(enterOrderRq.getTimeInForce(), expiryNanos).withRequestId(enterOrderRq.getRequestId());
         if (state == MatchingState.AUCTION){
             if (order.getSide() == Side.BUY) {
-                if (!order.getBroker().hasEnoughCredit(order.getValue())) {
+                if (!order.getBroker().tryDecreaseCreditBy(order.getValue())) {
                     return SecurityStatus.notEnoughCredit();
                 }
-                order.getBroker().decreaseCreditBy(order.getValue());
             }
             orderBook.enqueue(order);
             return SecurityStatus.auctioned();
         }
-        MatchResult matchResult = matcher.execute(order);
+        if (enterOrderRq.getTimeInForce() == TimeInForce.FOK && !orderBook.canFill(order))
+            return SecurityStatus.notFillable();
+        MatchResult matchResult = matcher.execute(order, enterOrderRq.getTimeInForce());
         return createAppropriateStatus(matchResult, enterOrderRq);
     }
 
+    public void assignId(int id) {
+        this.id = id;
+    }
+
+    private static long expiryNanosOf(EnterOrderRq enterOrderRq) {
+        long entryNanos = enterOrderRq.getEntryTime() == null
+                ? EngineClock.current().nanos() : EngineClock.toEpochNanos(enterOrderRq.getEntryTime());
+        return switch (enterOrderRq.getTimeInForce()) {
+            case GTT -> EngineClock.toEpochNanos(enterOrderRq.getExpiryTime());
+            case GTD -> TradingSession.current().closeOn(enterOrderRq.getExpiryTime().toLocalDate());
+            case DAY -> TradingSession.current().closeOf(entryNanos);
+            default -> 0;
+        };
+    }
+
+    void armExpiry(Order order) {
+        if (!expiryTimeouts.containsKey(order))
+            expiryTimeouts.put(order, expiries.schedule(order.getExpiryNanos(), order));
+    }
+
+    void disarmExpiry(Order order) {
+        TimingWheel.Timeout<Order> timeout = expiryTimeouts.remove(order);
+        if (timeout != null)
+            expiries.cancel(timeout);
+    }
+
+    public List<Order> expireOrders(long nowNanos) {
+        List<Order> expired = new ArrayList<>();
+        for (Order order : expiries.advance(nowNanos)) {
+            expiryTimeouts.remove(order);
+            if (expire(order))
+                expired.add(order);
+        }
+        return expired;
+    }
+
+    private boolean expire(Order order) {
+        if (inactiveOrderBook.findByOrderId(order.getSide(), order.getOrderId()) == order) {
+            inactiveOrderBook.removeByOrderId(order.getSide(), order.getOrderId());
+            return true;
+        }
+        if (orderBook.findByOrderId(order.getSide(), order.getOrderId()) != order)
+            return false;
+        if (order.getSide() == Side.BUY)
+            order.getBroker().increaseCreditBy(order.getValue());
+        orderBook.removeByOrderId(order.getSide(), order.getOrderId());
+        return true;
+    }
+
     public void deleteOrder(DeleteOrderRq deleteOrderRq) throws InvalidRequestException {
         Order order = orderBook.findByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
         if (order == null) {
             order = inactiveOrderBook.findByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
         }
-        if (order instanceof StopLimitOrder stopLimitOrder) {
+        deleteOrder(deleteOrderRq, order);
+    }
+
+    public void deleteOrder(DeleteOrderRq deleteOrderRq, RequestContext context) throws InvalidRequestException {
+        deleteOrder(deleteOrderRq, context.getOrder());
+    }
+
+    private void deleteOrder(DeleteOrderRq deleteOrderRq, Order order) {
+        if (order instanceof StopLimitOrder) {
             inactiveOrderBook.removeByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
             return;
         }
@@ -100,6 +189,27 @@ public class Security {
         orderBook.removeByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
     }
 
+    public List<Order> cancelOrders(MassCancelRq massCancelRq) {
+        List<Order> cancelled = new ArrayList<>();
+        for (Side side : Side.values()) {
+            if (massCancelRq.getSide() != null && massCancelRq.getSide() != side)
+                continue;
+            for (Order order : orderBook.findOrders(side, massCancelRq.getBrokerId(), massCancelRq.getShareholderId())) {
+                if (side == Side.BUY)
+                    order.getBroker().increaseCreditBy(order.getValue());
+                orderBook.removeByOrderId(side, order.getOrderId());
+                cancelled.add(order);
+            }
+            if (state == MatchingState.AUCTION)
+                continue;
+            for (Order order : inactiveOrderBook.findOrders(side, massCancelRq.getBrokerId(), massCancelRq.getShareholderId())) {
+                inactiveOrderBook.removeByOrderId(side, order.getOrderId());
+                cancelled.add(order);
+            }
+        }
+        return cancelled;
+    }
+
     public SecurityStatus updateOrder(EnterOrderRq updateOrderRq, Matcher matcher) throws InvalidRequestException {
         Order order;
         if (updateOrderRq.getStopPrice() != 0) {
@@ -107,7 +217,14 @@ public class Security {
         }
         else
             order = orderBook.findByOrderId(updateOrderRq.getSide(), updateOrderRq.getOrderId());
+        return updateOrder(updateOrderRq, order, matcher);
+    }
 
+    public SecurityStatus updateOrder(EnterOrderRq updateOrderRq, RequestContext context, Matcher matcher) throws InvalidRequestException {
+        return updateOrder(updateOrderRq, context.getOrder(), matcher);
+    }
+
+    private SecurityStatus updateOrder(EnterOrderRq updateOrderRq, Order order, Matcher matcher) {
         order.markAsUpdated();
 
         if (updateOrderRq.getSide() == Side.SELL &&
@@ -145,6 +262,7 @@ public class Security {
             if (updateOrderRq.getSide() == Side.BUY) {
                 order.getBroker().decreaseCreditBy(order.getValue());
             }
+            orderBook.markChanged(order);
             return SecurityStatus.updated();
         }
         else
@@ -165,16 +283,39 @@ public class Security {
         }
         else{
             if (order.getSide() == Side.BUY) {
-                if (!order.getBroker().hasEnoughCredit(order.getValue())) {
+                if (!order.getBroker().tryDecreaseCreditBy(order.getValue())) {
                     return SecurityStatus.notEnoughCredit();
                 }
-                order.getBroker().decreaseCreditBy(order.getValue());
             }
             orderBook.enqueue(order);
             return SecurityStatus.updated();
         }
     }
 
+    public BookSnapshot snapshot() {
+        return bookVersion.read(version -> new BookSnapshot(version,
+                copyOrders(orderBook.getBuyQueue(), version), copyOrders(orderBook.getSellQueue(), version),
+                copyOrders(inactiveOrderBook.getBuyQueue(), version), copyOrders(inactiveOrderBook.getSellQueue(), version)));
+    }
+
+    private List<Order> copyOrders(List<Order> queue, long version) {
+        List<Order> copies = new ArrayList<>();
+        for (Order order : queue) {
+            if (!bookVersion.isAt(version))
+                throw new ConcurrentModificationException();
+            copies.add(order.copy());
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    public boolean refreshTopOfBook() {
+        TopOfBook current = orderBook.topOfBook();
+        if (current.equals(topOfBook))
+            return false;
+        topOfBook = current;
+        return true;
+    }
+
     public void checkExecutableOrders(int tradePrice) {
         int previousTransactionPrice = lastTransactionPrice;
         lastTransactionPrice = tradePrice;
@@ -239,17 +380,25 @@ public class Security {
 
 
     public LinkedList<MatchResult> runAuctionedOrders(Matcher matcher){
+        LedgerDelta ledger = new LedgerDelta();
+        LinkedList<MatchResult> results = runAuctionedOrders(matcher, ledger);
+        ledger.apply();
+        return results;
+    }
+
+    public LinkedList<MatchResult> runAuctionedOrders(Matcher matcher, LedgerDelta ledger){
         LinkedList<MatchResult> results = new LinkedList<>();
-        LinkedList<Order> buyOrders = orderBook.getQueue(Side.BUY);
+        OrderQueue buyOrders = orderBook.getQueue(Side.BUY);
         while (orderBook.hasOrderOfType(Side.BUY) && orderBook.hasOrderOfType(Side.SELL)){
             Order auctionedOrder = buyOrders.removeFirst();
 
-            MatchResult matchResult = matcher.executeAuction(auctionedOrder);
+            MatchResult matchResult = matcher.uncross(auctionedOrder, ledger);
             if (matchResult.trades().isEmpty()){
                 buyOrders.addFirst(auctionedOrder);
                 break;
             }
             results.add(matchResult);
+            ledger.addTrades(matchResult.trades());
         }
         return results;
     }
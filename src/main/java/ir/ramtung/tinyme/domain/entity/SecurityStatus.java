@@ -36,6 +36,9 @@ public class SecurityStatus {
     public static SecurityStatus notEnoughInitialTransaction(){
         return new SecurityStatus(RequestStatus.NOT_ENOUGH_INITIAL_TRANSACTION, new LinkedList<>());
     }
+    public static SecurityStatus notFillable() {
+        return new SecurityStatus(RequestStatus.NOT_FILLABLE, new LinkedList<>());
+    }
     public static SecurityStatus queuedAsInactiveOrder(){
         return new SecurityStatus(RequestStatus.QUEUED_AS_INACTIVE_ORDER, new LinkedList<>());
     }
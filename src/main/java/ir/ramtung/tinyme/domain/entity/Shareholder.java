@@ -5,8 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 @ToString
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
@@ -17,23 +16,49 @@ public class Shareholder {
     private long shareholderId;
     @Getter
     private String name;
-    @Getter
     @Builder.Default
-    private Map<Security, Integer> positions = new HashMap<>();
+    private int[] positions = new int[0];
+
+    public synchronized int[] getPositions() {
+        return positions.clone();
+    }
 
     public void incPosition(Security security, int amount) {
         assert amount >= 0;
-        positions.put(security, positions.getOrDefault(security, 0) + amount);
+        incPosition(security.getId(), amount);
     }
 
     public void decPosition(Security security, int amount) {
         assert amount >= 0;
-        int currentPositions = positions.getOrDefault(security, 0);
+        decPosition(security.getId(), amount);
+    }
+
+    synchronized void incPosition(int securityId, int amount) {
+        checkAssigned(securityId);
+        if (securityId >= positions.length)
+            positions = Arrays.copyOf(positions, Math.max(securityId + 1, positions.length * 2));
+        positions[securityId] += amount;
+    }
+
+    synchronized void decPosition(int securityId, int amount) {
+        checkAssigned(securityId);
+        int currentPositions = getPosition(securityId);
         if (currentPositions < amount)
             throw new IllegalArgumentException("Amount to be decreased is greater than shareholder's current position");
-        positions.put(security, currentPositions - amount);
+        positions[securityId] = currentPositions - amount;
+    }
+
+    public synchronized int getPosition(int securityId) {
+        checkAssigned(securityId);
+        return securityId < positions.length ? positions[securityId] : 0;
     }
+
     public boolean hasEnoughPositionsOn(Security security, int position) {
-        return positions.getOrDefault(security, 0) >= position;
+        return getPosition(security.getId()) >= position;
+    }
+
+    private static void checkAssigned(int securityId) {
+        if (securityId < 0)
+            throw new IllegalStateException("Security has no id; add it to the SecurityRepository or set its id");
     }
 }
@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.domain.entity;
 
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -13,20 +14,19 @@ import java.time.LocalDateTime;
 public class StopLimitOrder extends Order{
 
     protected int StopPrice;
-    protected long requestId;
 
-    StopLimitOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, OrderStatus status, int minimumExecutionQuantity, int stopPrice, long requestId) {
-        super(orderId, security, side, quantity, price, broker, shareholder, entryTime, status, minimumExecutionQuantity);
+    StopLimitOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, long entryNanos, OrderStatus status, int minimumExecutionQuantity, int stopPrice, long requestId) {
+        super(orderId, security, side, quantity, price, broker, shareholder, entryNanos, status, minimumExecutionQuantity);
         this.StopPrice = stopPrice;
         this.requestId = requestId;
     }
 
-    StopLimitOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int minimumExecutionQuantity, int stopPrice, long requestId){
-        this(orderId, security, side, quantity, price, broker, shareholder, entryTime, OrderStatus.NEW, minimumExecutionQuantity, stopPrice, requestId);
+    public StopLimitOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, LocalDateTime entryTime, int minimumExecutionQuantity, int stopPrice, long requestId){
+        this(orderId, security, side, quantity, price, broker, shareholder, toEntryNanos(entryTime), OrderStatus.NEW, minimumExecutionQuantity, stopPrice, requestId);
     }
 
     public StopLimitOrder(long orderId, Security security, Side side, int quantity, int price, Broker broker, Shareholder shareholder, int minimumExecutionQuantity, int stopPrice, long requestId){
-        this(orderId, security, side, quantity, price, broker, shareholder, LocalDateTime.now(), OrderStatus.NEW, minimumExecutionQuantity, stopPrice, requestId);
+        this(orderId, security, side, quantity, price, broker, shareholder, EngineClock.current().nanos(), OrderStatus.NEW, minimumExecutionQuantity, stopPrice, requestId);
     }
 
     @Override
@@ -55,7 +55,7 @@ public class StopLimitOrder extends Order{
 
     @Override
     public Order snapshot() {
-        return new StopLimitOrder(orderId, security, side, quantity, price, broker, shareholder, entryTime, OrderStatus.SNAPSHOT, minimumExecutionQuantity, StopPrice, requestId);
+        return new StopLimitOrder(orderId, security, side, quantity, price, broker, shareholder, entryNanos, OrderStatus.SNAPSHOT, minimumExecutionQuantity, StopPrice, requestId).withTimeInForce(timeInForce, expiryNanos);
     }
 
 }
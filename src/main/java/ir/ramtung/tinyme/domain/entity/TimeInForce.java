@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public enum TimeInForce {
+    GTC,
+    IOC,
+    FOK,
+    GTT,
+    GTD,
+    DAY;
+
+    public boolean isImmediate() {
+        return this == IOC || this == FOK;
+    }
+
+    public boolean needsExpiryTime() {
+        return this == GTT || this == GTD;
+    }
+}
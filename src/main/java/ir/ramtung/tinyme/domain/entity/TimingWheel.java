@@ -0,0 +1,148 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private final long tickNanos;
+    private final Object[][] buckets = new Object[LEVELS][SLOTS];
+    private final long[] occupied = new long[LEVELS];
+    private long now;
+    private int size;
+
+    public static final class Timeout<T> {
+        private final long deadline;
+        private final T payload;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(long deadline, T payload) {
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return level >= 0;
+        }
+    }
+
+    public TimingWheel(long tickNanos, long startNanos) {
+        this.tickNanos = tickNanos;
+        this.now = Math.floorDiv(startNanos, tickNanos);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Timeout<T> schedule(long deadlineNanos, T payload) {
+        Timeout<T> timeout = new Timeout<>(-Math.floorDiv(-deadlineNanos, tickNanos), payload);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending())
+            return false;
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    public List<T> advance(long nowNanos) {
+        long target = Math.floorDiv(nowNanos, tickNanos);
+        List<T> expired = new ArrayList<>();
+        while (true) {
+            int dueLevel = -1;
+            long due = Long.MAX_VALUE;
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                long levelDue = nextDue(level);
+                if (levelDue < due) {
+                    due = levelDue;
+                    dueLevel = level;
+                }
+            }
+            if (dueLevel < 0 || due > target)
+                break;
+            now = due;
+            cascade(dueLevel, expired);
+        }
+        now = Math.max(now, target);
+        return expired;
+    }
+
+    private long nextDue(int level) {
+        int digit = digit(now, level);
+        long candidates = level == 0 ? occupied[0] & (-1L << digit)
+                : digit == SLOTS - 1 ? 0 : occupied[level] & (-1L << (digit + 1));
+        if (candidates == 0)
+            return Long.MAX_VALUE;
+        int shift = SLOT_BITS * (level + 1);
+        long prefix = shift >= Long.SIZE ? 0 : now >>> shift << shift;
+        return prefix | (long) Long.numberOfTrailingZeros(candidates) << (SLOT_BITS * level);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cascade(int level, List<T> expired) {
+        int slot = digit(now, level);
+        Timeout<T> timeout = (Timeout<T>) buckets[level][slot];
+        buckets[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.level = -1;
+            if (timeout.deadline <= now) {
+                expired.add(timeout.payload);
+                size--;
+            } else
+                place(timeout);
+            timeout = next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void place(Timeout<T> timeout) {
+        long deadline = Math.max(timeout.deadline, now);
+        int level = deadline == now ? 0 : (63 - Long.numberOfLeadingZeros(deadline ^ now)) / SLOT_BITS;
+        int slot = digit(deadline, level);
+        Timeout<T> head = (Timeout<T>) buckets[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = head;
+        if (head != null)
+            head.prev = timeout;
+        buckets[level][slot] = timeout;
+        occupied[level] |= 1L << slot;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev == null)
+            buckets[timeout.level][timeout.slot] = timeout.next;
+        else
+            timeout.prev.next = timeout.next;
+        if (timeout.next != null)
+            timeout.next.prev = timeout.prev;
+        if (buckets[timeout.level][timeout.slot] == null)
+            occupied[timeout.level] &= ~(1L << timeout.slot);
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private static int digit(long ticks, int level) {
+        return (int) (ticks >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+}
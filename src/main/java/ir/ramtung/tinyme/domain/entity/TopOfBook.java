@@ -0,0 +1,5 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public record TopOfBook(PriceLevel bid, PriceLevel ask) {
+    public static final TopOfBook EMPTY = new TopOfBook(null, null);
+}
@@ -43,6 +43,10 @@ public class Trade {
         buy.getBroker().decreaseCreditBy(getTradedValue());
     }
 
+    public boolean tryDecreaseBuyersCredit() {
+        return buy.getBroker().tryDecreaseCreditBy(getTradedValue());
+    }
+
     public boolean buyerHasEnoughCredit() {
         return buy.getBroker().hasEnoughCredit(getTradedValue());
     }
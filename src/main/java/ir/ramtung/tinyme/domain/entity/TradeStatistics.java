@@ -0,0 +1,132 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.domain.service.TradingSession;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+public class TradeStatistics {
+    public enum Resolution {
+        SECOND(1_000_000_000L), MINUTE(60_000_000_000L), SESSION(Long.MAX_VALUE);
+
+        private final long nanos;
+
+        Resolution(long nanos) {
+            this.nanos = nanos;
+        }
+    }
+
+    public record Bar(long start, int open, int high, int low, int close, long volume, long turnover) {
+        public double vwap() {
+            return volume == 0 ? 0 : (double) turnover / volume;
+        }
+    }
+
+    private static final int SLOTS = 64;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private static final class Ring {
+        private final long width;
+        private final long[] start;
+        private final int[] open;
+        private final int[] high;
+        private final int[] low;
+        private final int[] close;
+        private final long[] volume;
+        private final long[] turnover;
+
+        private Ring(long width, int slots) {
+            this.width = width;
+            start = new long[slots];
+            open = new int[slots];
+            high = new int[slots];
+            low = new int[slots];
+            close = new int[slots];
+            volume = new long[slots];
+            turnover = new long[slots];
+            Arrays.fill(start, EMPTY);
+        }
+
+        private int slotOf(long bucketStart) {
+            return (int) Math.floorMod(Math.floorDiv(bucketStart, width), (long) start.length);
+        }
+
+        private long bucketStart(long timeNanos) {
+            return width == Long.MAX_VALUE ? TradingSession.current().openOf(timeNanos) : Math.floorDiv(timeNanos, width) * width;
+        }
+
+        private void record(long timeNanos, int price, int quantity) {
+            long bucketStart = bucketStart(timeNanos);
+            int slot = slotOf(bucketStart);
+            if (start[slot] != bucketStart) {
+                start[slot] = bucketStart;
+                open[slot] = high[slot] = low[slot] = price;
+                volume[slot] = turnover[slot] = 0;
+            }
+            high[slot] = Math.max(high[slot], price);
+            low[slot] = Math.min(low[slot], price);
+            close[slot] = price;
+            volume[slot] += quantity;
+            turnover[slot] += (long) price * quantity;
+        }
+
+        private Bar read(long timeNanos) {
+            long bucketStart = bucketStart(timeNanos);
+            int slot = slotOf(bucketStart);
+            if (start[slot] != bucketStart)
+                return null;
+            return new Bar(bucketStart, open[slot], high[slot], low[slot], close[slot], volume[slot], turnover[slot]);
+        }
+    }
+
+    private final Ring seconds = new Ring(Resolution.SECOND.nanos, SLOTS);
+    private final Ring minutes = new Ring(Resolution.MINUTE.nanos, SLOTS);
+    private final Ring session = new Ring(Resolution.SESSION.nanos, 1);
+    private volatile long version;
+    private boolean changed;
+
+    public void record(long timeNanos, int price, int quantity) {
+        long current = version;
+        version = current + 1;
+        VarHandle.storeStoreFence();
+        seconds.record(timeNanos, price, quantity);
+        minutes.record(timeNanos, price, quantity);
+        session.record(timeNanos, price, quantity);
+        version = current + 2;
+        changed = true;
+    }
+
+    public boolean takeChanged() {
+        boolean wasChanged = changed;
+        changed = false;
+        return wasChanged;
+    }
+
+    public void record(long timeNanos, Iterable<Trade> trades) {
+        for (Trade trade : trades)
+            record(timeNanos, trade.getPrice(), trade.getQuantity());
+    }
+
+    public Bar bar(Resolution resolution, long timeNanos) {
+        Ring ring = switch (resolution) {
+            case SECOND -> seconds;
+            case MINUTE -> minutes;
+            case SESSION -> session;
+        };
+        while (true) {
+            long before = version;
+            if ((before & 1) == 0) {
+                Bar bar = ring.read(timeNanos);
+                VarHandle.loadLoadFence();
+                if (version == before)
+                    return bar;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public Bar session() {
+        return bar(Resolution.SESSION, EngineClock.current().nanos());
+    }
+}
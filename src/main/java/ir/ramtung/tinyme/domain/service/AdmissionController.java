@@ -0,0 +1,132 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class AdmissionController {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final BrokerRepository brokerRepository;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final int capacity;
+    private final int brokerRateLimit;
+    private final int brokerBurst;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<Long, TokenBucket> bucketByBrokerId = new ConcurrentHashMap<>();
+    private volatile boolean overloaded;
+    private volatile long sessionOpen;
+
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final int capacity;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int ratePerSecond, int capacity, long now) {
+            this.ratePerNano = ratePerSecond / NANOS_PER_SECOND;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            if (tokens < 1)
+                return false;
+            tokens--;
+            return true;
+        }
+    }
+
+    @Autowired
+    public AdmissionController(BrokerRepository brokerRepository,
+                               @Value("${ingressHighWatermark:0}") int highWatermark,
+                               @Value("${ingressLowWatermark:0}") int lowWatermark,
+                               @Value("${ingressCapacity:0}") int capacity,
+                               @Value("${brokerRateLimit:0}") int brokerRateLimit,
+                               @Value("${brokerBurst:0}") int brokerBurst) {
+        this.brokerRepository = brokerRepository;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+        this.capacity = capacity;
+        this.brokerRateLimit = brokerRateLimit;
+        this.brokerBurst = brokerBurst > 0 ? brokerBurst : brokerRateLimit;
+    }
+
+    public static AdmissionController unlimited() {
+        return new AdmissionController(null, 0, 0, 0, 0, 0);
+    }
+
+    public String admit(EnterOrderRq enterOrderRq) {
+        if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER && isOverloaded())
+            return Message.ENGINE_OVERLOADED;
+        if (brokerRateLimit > 0 && brokerRepository.findBrokerById(enterOrderRq.getBrokerId()) != null
+                && !bucketOf(enterOrderRq.getBrokerId()).tryAcquire(EngineClock.current().nanos()))
+            return Message.BROKER_RATE_LIMIT_EXCEEDED;
+        return null;
+    }
+
+    public boolean isOverloaded() {
+        if (highWatermark <= 0)
+            return false;
+        int current = inFlight.get();
+        if (!overloaded && current >= highWatermark)
+            overloaded = true;
+        else if (overloaded && current <= lowWatermark)
+            overloaded = false;
+        return overloaded;
+    }
+
+    private TokenBucket bucketOf(long brokerId) {
+        long now = EngineClock.current().nanos();
+        long open = TradingSession.current().openOf(now);
+        if (open != sessionOpen) {
+            sessionOpen = open;
+            bucketByBrokerId.clear();
+        }
+        return bucketByBrokerId.computeIfAbsent(brokerId, id -> new TokenBucket(brokerRateLimit, brokerBurst, now));
+    }
+
+    public Runnable tryAcquire(Runnable action) {
+        return tryAcquire(action, 1);
+    }
+
+    public Runnable tryAcquire(Runnable action, int weight) {
+        if (capacity <= 0)
+            inFlight.addAndGet(weight);
+        else {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current + weight > capacity)
+                    return null;
+            } while (!inFlight.compareAndSet(current, current + weight));
+        }
+        return () -> {
+            try {
+                action.run();
+            } finally {
+                inFlight.addAndGet(-weight);
+            }
+        };
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getRateLimitedBrokers() {
+        return bucketByBrokerId.size();
+    }
+}
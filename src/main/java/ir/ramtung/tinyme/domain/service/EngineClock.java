@@ -0,0 +1,33 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public abstract class EngineClock {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static volatile EngineClock current = new SystemEngineClock();
+
+    public static EngineClock current() {
+        return current;
+    }
+
+    public static void use(EngineClock clock) {
+        current = clock;
+    }
+
+    public abstract long nanos();
+
+    public static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    public static long toEpochNanos(LocalDateTime time) {
+        return toEpochNanos(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,75 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+
+import java.util.HashMap;
+
+class InboundConflator {
+    private enum Kind {
+        NEW, UPDATE, DELETE
+    }
+
+    static final class Ticket {
+        private final OrderKey key;
+        private final Kind kind;
+        private Ticket previous;
+        private boolean started;
+        private String rejection;
+        private boolean annihilates;
+
+        private Ticket(OrderKey key, Kind kind) {
+            this.key = key;
+            this.kind = kind;
+        }
+    }
+
+    private final HashMap<OrderKey, Ticket> pending = new HashMap<>();
+
+    Ticket ticket(EnterOrderRq enterOrderRq) {
+        return new Ticket(new OrderKey(enterOrderRq.getSecurityIsin(), enterOrderRq.getSide(), enterOrderRq.getOrderId()),
+                enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER ? Kind.NEW : Kind.UPDATE);
+    }
+
+    Ticket ticket(DeleteOrderRq deleteOrderRq) {
+        return new Ticket(new OrderKey(deleteOrderRq.getSecurityIsin(), deleteOrderRq.getSide(), deleteOrderRq.getOrderId()), Kind.DELETE);
+    }
+
+    synchronized void enqueue(Ticket ticket) {
+        ticket.previous = pending.put(ticket.key, ticket);
+        if (ticket.kind == Kind.UPDATE)
+            for (Ticket previous = ticket.previous; isQueued(previous) && previous.kind == Kind.UPDATE; previous = previous.previous)
+                previous.rejection = Message.ORDER_UPDATE_SUPERSEDED;
+        else if (ticket.kind == Kind.DELETE)
+            for (Ticket previous = ticket.previous; isQueued(previous) && previous.kind != Kind.DELETE; previous = previous.previous) {
+                if (previous.kind == Kind.UPDATE)
+                    previous.rejection = Message.ORDER_UPDATE_SUPERSEDED;
+                else {
+                    previous.rejection = Message.ORDER_CANCELLED_BEFORE_PROCESSING;
+                    ticket.annihilates = true;
+                }
+            }
+    }
+
+    private static boolean isQueued(Ticket ticket) {
+        return ticket != null && !ticket.started;
+    }
+
+    synchronized String startEnter(Ticket ticket) {
+        start(ticket);
+        return ticket.rejection;
+    }
+
+    synchronized boolean startDelete(Ticket ticket) {
+        start(ticket);
+        return ticket.annihilates;
+    }
+
+    private void start(Ticket ticket) {
+        ticket.started = true;
+        ticket.previous = null;
+        pending.remove(ticket.key, ticket);
+    }
+}
@@ -0,0 +1,24 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ManualEngineClock extends EngineClock {
+    private final AtomicLong nanos;
+
+    public ManualEngineClock(long epochNanos) {
+        nanos = new AtomicLong(epochNanos);
+    }
+
+    @Override
+    public long nanos() {
+        return nanos.get();
+    }
+
+    public void set(long epochNanos) {
+        nanos.set(epochNanos);
+    }
+
+    public void advance(long deltaNanos) {
+        nanos.addAndGet(deltaNanos);
+    }
+}
@@ -5,11 +5,16 @@ import ir.ramtung.tinyme.messaging.request.MatchingState;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 
 @Service
 public class Matcher {
     public MatchResult match(Order newOrder) {
+        return match(newOrder, null);
+    }
+
+    private MatchResult match(Order newOrder, LedgerDelta ledger) {
         OrderBook orderBook = newOrder.getSecurity().getOrderBook();
         LinkedList<Trade> trades = new LinkedList<>();
         int openingPrice = newOrder.getSecurity().getOpeningPrice();
@@ -22,28 +27,32 @@ public class Matcher {
             Trade trade = new Trade(newOrder.getSecurity(), price, Math.min(newOrder.getQuantity(), matchingOrder.getQuantity()), newOrder, matchingOrder);
             if (newOrder.getSecurity().getState() == MatchingState.CONTINUOUS) {
                 if (newOrder.getSide() == Side.BUY) {
-                    if (trade.buyerHasEnoughCredit())
-                        trade.decreaseBuyersCredit();
-                    else {
+                    if (!trade.tryDecreaseBuyersCredit()) {
                         rollbackTrades(newOrder, trades);
                         return MatchResult.notEnoughCredit();
                     }
                 }
             }
-            trade.increaseSellersCredit();
+            if (ledger == null)
+                trade.increaseSellersCredit();
+            else
+                ledger.addCredit(trade.getSell().getBroker(), trade.getTradedValue());
             trades.add(trade);
 
             if (newOrder.getQuantity() >= matchingOrder.getQuantity()) {
                 newOrder.decreaseQuantity(matchingOrder.getQuantity());
-                orderBook.removeFirst(matchingOrder.getSide());
                 if (matchingOrder instanceof IcebergOrder icebergOrder) {
                     icebergOrder.decreaseQuantity(matchingOrder.getQuantity());
                     icebergOrder.replenish();
                     if (icebergOrder.getQuantity() > 0)
-                        orderBook.enqueue(icebergOrder);
-                }
+                        orderBook.moveFirstToLevelTail(matchingOrder.getSide());
+                    else
+                        orderBook.removeFirst(matchingOrder.getSide());
+                } else
+                    orderBook.removeFirst(matchingOrder.getSide());
             } else {
                 matchingOrder.decreaseQuantity(newOrder.getQuantity());
+                orderBook.markChanged(matchingOrder);
                 newOrder.makeQuantityZero();
             }
         }
@@ -67,7 +76,16 @@ public class Matcher {
         }
     }
 
+    private void recordTrades(Order order, List<Trade> trades) {
+        if (!trades.isEmpty())
+            order.getSecurity().getTradeStatistics().record(EngineClock.current().nanos(), trades);
+    }
+
     public MatchResult execute(Order order) {
+        return execute(order, TimeInForce.GTC);
+    }
+
+    public MatchResult execute(Order order, TimeInForce timeInForce) {
         int initialQuantity = order.getQuantity();
         MatchResult result = match(order);
         if (result.outcome() == MatchingOutcome.NOT_ENOUGH_CREDIT)
@@ -75,45 +93,48 @@ public class Matcher {
 
 
         if (result.remainder().getQuantity() > 0) {
-            if (order.getSide() == Side.BUY) {
-                if (!order.getBroker().hasEnoughCredit(order.getValue())) {
+            if (order.getSide() == Side.BUY && !timeInForce.isImmediate()) {
+                if (!order.getBroker().tryDecreaseCreditBy(order.getValue())) {
                     rollbackTrades(order, result.trades());
                     return MatchResult.notEnoughCredit();
                 }
-
-                order.getBroker().decreaseCreditBy(order.getValue());
             }
             if (order.isNew() && order.getMinimumExecutionQuantity() > (initialQuantity - result.remainder().getQuantity())){
                 rollbackTrades(order, result.trades());
                 return MatchResult.notEnoughInitialTransaction();
             }
 
-            order.getSecurity().getOrderBook().enqueue(result.remainder());
-        }
-        if (!result.trades().isEmpty()) {
-            for (Trade trade : result.trades()) {
-                trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-                trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
-            }
+            if (!timeInForce.isImmediate())
+                order.getSecurity().getOrderBook().enqueue(result.remainder());
         }
+        recordTrades(order, result.trades());
+        PositionLedger.applyTrades(result.trades());
         return result;
     }
+
     public MatchResult executeAuction(Order order){
+        MatchResult result = uncross(order);
+        PositionLedger.applyTrades(result.trades());
+        return result;
+    }
+
+    public MatchResult uncross(Order order){
+        LedgerDelta ledger = new LedgerDelta();
+        MatchResult result = uncross(order, ledger);
+        ledger.apply();
+        return result;
+    }
+
+    public MatchResult uncross(Order order, LedgerDelta ledger){
         int initialQuantity = order.getQuantity();
-        MatchResult result = match(order);
+        MatchResult result = match(order, ledger);
+        recordTrades(order, result.trades());
 
         if (result.remainder().getQuantity() > 0)
             order.getSecurity().getOrderBook().enqueue(result.remainder());
 
         if (order.getSide() == Side.BUY)
-            order.getBroker().increaseCreditBy((long) (order.getPrice() - order.getSecurity().getOpeningPrice()) * (initialQuantity - order.getQuantity()));
-
-        if (!result.trades().isEmpty()) {
-            for (Trade trade : result.trades()) {
-                trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-                trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
-            }
-        }
+            ledger.addCredit(order.getBroker(), (long) (order.getPrice() - order.getSecurity().getOpeningPrice()) * (initialQuantity - order.getQuantity()));
         return result;
     }
 
@@ -10,10 +10,19 @@ import ir.ramtung.tinyme.messaging.request.*;
 import ir.ramtung.tinyme.repository.BrokerRepository;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,30 +32,72 @@ public class OrderHandler {
     ShareholderRepository shareholderRepository;
     EventPublisher eventPublisher;
     Matcher matcher;
+    RequestValidator requestValidator;
+    private final int depthSnapshotInterval;
+    private final ThreadLocal<List<Event>> batchEvents = new ThreadLocal<>();
 
     public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, EventPublisher eventPublisher, Matcher matcher) {
+        this(securityRepository, brokerRepository, shareholderRepository, eventPublisher, matcher, 1000);
+    }
+
+    @Autowired
+    public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, EventPublisher eventPublisher, Matcher matcher,
+                        @Value("${depthSnapshotInterval:1000}") int depthSnapshotInterval) {
         this.securityRepository = securityRepository;
         this.brokerRepository = brokerRepository;
         this.shareholderRepository = shareholderRepository;
         this.eventPublisher = eventPublisher;
         this.matcher = matcher;
+        this.requestValidator = new RequestValidator(securityRepository, brokerRepository, shareholderRepository);
+        this.depthSnapshotInterval = depthSnapshotInterval;
+    }
+
+    public Prevalidation prevalidate(EnterOrderRq enterOrderRq) {
+        return requestValidator.prevalidate(enterOrderRq);
+    }
+
+    public Prevalidation prevalidate(DeleteOrderRq deleteOrderRq) {
+        return requestValidator.prevalidate(deleteOrderRq);
+    }
+
+    public List<Prevalidation> prevalidate(BatchRq batchRq) {
+        return batchRq.getOperations().stream()
+                .map(operation -> operation.getEnterOrderRq() != null
+                        ? prevalidate(operation.getEnterOrderRq())
+                        : prevalidate(operation.getDeleteOrderRq()))
+                .toList();
+    }
+
+    private void publish(Event event) {
+        List<Event> events = batchEvents.get();
+        if (events == null)
+            eventPublisher.publish(event);
+        else
+            events.add(event);
     }
 
-    private void publishStopLimitOrderEvents(LinkedList<MatchResult> results) {
+    private void publishStopLimitOrderEvents(LinkedList<MatchResult> results, Consumer<Event> publisher) {
         for (MatchResult result : results) {
             StopLimitOrder executedOrder = (StopLimitOrder) result.remainder();
-            eventPublisher.publish(new OrderActivatedEvent(executedOrder.getRequestId(), executedOrder.getOrderId()));
+            publisher.accept(new OrderActivatedEvent(executedOrder.getRequestId(), executedOrder.getOrderId()));
             if (!result.trades().isEmpty())
-                eventPublisher.publish(new OrderExecutedEvent(executedOrder.getRequestId(), executedOrder.getOrderId(), result.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
+                publisher.accept(new OrderExecutedEvent(executedOrder.getRequestId(), executedOrder.getOrderId(), result.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
         }
     }
 
-    private LinkedList<MatchResult> handleAuctionedOrders(Security security) {
-        LinkedList<MatchResult> results = security.runAuctionedOrders(matcher);
+    private LinkedList<MatchResult> handleAuctionedOrders(Security security, Consumer<Event> publisher) {
+        LedgerDelta ledger = new LedgerDelta();
+        LinkedList<MatchResult> results = handleAuctionedOrders(security, ledger, publisher);
+        ledger.apply();
+        return results;
+    }
+
+    private LinkedList<MatchResult> handleAuctionedOrders(Security security, LedgerDelta ledger, Consumer<Event> publisher) {
+        LinkedList<MatchResult> results = security.runAuctionedOrders(matcher, ledger);
         for (MatchResult result : results) {
             if (!result.trades().isEmpty()){
                 for (Trade trade : result.trades()) {
-                    eventPublisher.publish(new TradeEvent(trade.getSecurity().getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuy().getOrderId(), trade.getSell().getOrderId()));
+                    publisher.accept(new TradeEvent(trade.getSecurity().getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuy().getOrderId(), trade.getSell().getOrderId()));
                 }
             }
         }
@@ -54,59 +105,79 @@ public class OrderHandler {
     }
 
     public void handleEnterOrder(EnterOrderRq enterOrderRq) {
+        handleEnterOrder(enterOrderRq, prevalidate(enterOrderRq));
+    }
+
+    public void handleEnterOrder(EnterOrderRq enterOrderRq, Prevalidation prevalidation) {
+        Security security = prevalidation.getContext().getSecurity();
+        if (security == null) {
+            processEnterOrder(enterOrderRq, prevalidation);
+            return;
+        }
+        security.getBookVersion().beginWrite();
         try {
-            validateEnterOrderRq(enterOrderRq);
+            processEnterOrder(enterOrderRq, prevalidation);
+        } finally {
+            security.getBookVersion().endWrite();
+        }
+        publishMarketDepth(security);
+    }
 
-            Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
-            Broker broker = brokerRepository.findBrokerById(enterOrderRq.getBrokerId());
-            Shareholder shareholder = shareholderRepository.findShareholderById(enterOrderRq.getShareholderId());
+    private void processEnterOrder(EnterOrderRq enterOrderRq, Prevalidation prevalidation) {
+        try {
+            RequestContext context = validateEnterOrderRq(enterOrderRq, prevalidation);
+            Security security = context.getSecurity();
 
             SecurityStatus securityStatus;
             if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
-                securityStatus = security.newOrder(enterOrderRq, broker, shareholder, matcher);
+                securityStatus = security.newOrder(enterOrderRq, context, matcher);
             else
-                securityStatus = security.updateOrder(enterOrderRq, matcher);
+                securityStatus = security.updateOrder(enterOrderRq, context, matcher);
 
             if (securityStatus.requestStatus() == RequestStatus.NOT_ENOUGH_CREDIT) {
-                eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)));
+                publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)));
                 return;
             }
             if (securityStatus.requestStatus() == RequestStatus.NOT_ENOUGH_POSITIONS) {
-                eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.SELLER_HAS_NOT_ENOUGH_POSITIONS)));
+                publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.SELLER_HAS_NOT_ENOUGH_POSITIONS)));
                 return;
             }
             if (securityStatus.requestStatus() == RequestStatus.NOT_ENOUGH_INITIAL_TRANSACTION) {
-                eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.BROKER_HAS_NOT_ENOUGH_INITIAL_TRANSACTION)));
+                publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.BROKER_HAS_NOT_ENOUGH_INITIAL_TRANSACTION)));
+                return;
+            }
+            if (securityStatus.requestStatus() == RequestStatus.NOT_FILLABLE) {
+                publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.FILL_OR_KILL_ORDER_NOT_FILLABLE)));
                 return;
             }
             if (securityStatus.requestStatus() == RequestStatus.ACCEPTED)
-                eventPublisher.publish(new OrderAcceptedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderAcceptedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
             if (securityStatus.requestStatus() == RequestStatus.ACCEPTED_AND_ACTIVATED) {
-                eventPublisher.publish(new OrderAcceptedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
-                eventPublisher.publish(new OrderActivatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderAcceptedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderActivatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
             }
             if (securityStatus.requestStatus() == RequestStatus.UPDATED)
-                eventPublisher.publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
             if (securityStatus.requestStatus() == RequestStatus.UPDATED_AND_ACTIVATED) {
-                eventPublisher.publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
-                eventPublisher.publish(new OrderActivatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
+                publish(new OrderActivatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
             }
 
             if (security.getState() == MatchingState.AUCTION)
                 publishOpeningData(security);
 
             if (securityStatus.requestStatus() == RequestStatus.AUCTIONED) {
-                handleAuctionedOrders(security);
+                handleAuctionedOrders(security, this::publish);
             }
 
             if (!securityStatus.trades().isEmpty()) {
-                eventPublisher.publish(new OrderExecutedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), securityStatus.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
+                publish(new OrderExecutedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), securityStatus.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
                 LinkedList<MatchResult> results = security.handleExecutableOrders(securityStatus.trades().getLast().getPrice(), matcher);
                 for (MatchResult result : results) {
                     StopLimitOrder executedOrder = (StopLimitOrder) result.remainder();
-                    eventPublisher.publish(new OrderActivatedEvent(executedOrder.getRequestId(), executedOrder.getOrderId()));
+                    publish(new OrderActivatedEvent(executedOrder.getRequestId(), executedOrder.getOrderId()));
                     if (!result.trades().isEmpty()){
-                        eventPublisher.publish(new OrderExecutedEvent(executedOrder.getRequestId(), executedOrder.getOrderId(), result.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
+                        publish(new OrderExecutedEvent(executedOrder.getRequestId(), executedOrder.getOrderId(), result.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
                         processingStopLimitOrders(security, securityStatus);
                     }
                 }
@@ -115,125 +186,301 @@ public class OrderHandler {
                     LinkedList<MatchResult> matchResults = security.enqueueExecutableOrders();
                     for (MatchResult result : matchResults) {
                         StopLimitOrder activatedOrder = (StopLimitOrder) result.remainder();
-                        eventPublisher.publish(new OrderActivatedEvent(activatedOrder.getRequestId(), activatedOrder.getOrderId()));
+                        publish(new OrderActivatedEvent(activatedOrder.getRequestId(), activatedOrder.getOrderId()));
                     }
                 }
             }
+
+            if (enterOrderRq.getTimeInForce() == TimeInForce.IOC && securityStatus.requestStatus() == RequestStatus.ACCEPTED
+                    && securityStatus.trades().stream().mapToInt(Trade::getQuantity).sum() < enterOrderRq.getQuantity())
+                publish(new OrderDeletedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
         } catch (InvalidRequestException ex) {
-            eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), ex.getReasons()));
+            publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), ex.getReasons()));
         }
     }
 
     public void handleDeleteOrder(DeleteOrderRq deleteOrderRq) {
+        handleDeleteOrder(deleteOrderRq, prevalidate(deleteOrderRq));
+    }
+
+    public void handleDeleteOrder(DeleteOrderRq deleteOrderRq, Prevalidation prevalidation) {
+        Security security = prevalidation.getContext().getSecurity();
+        if (security == null) {
+            processDeleteOrder(deleteOrderRq, prevalidation);
+            return;
+        }
+        security.getBookVersion().beginWrite();
         try {
-            validateDeleteOrderRq(deleteOrderRq);
-            Security security = securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin());
-            security.deleteOrder(deleteOrderRq);
-            eventPublisher.publish(new OrderDeletedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId()));
+            processDeleteOrder(deleteOrderRq, prevalidation);
+        } finally {
+            security.getBookVersion().endWrite();
+        }
+        publishMarketDepth(security);
+    }
+
+    private void processDeleteOrder(DeleteOrderRq deleteOrderRq, Prevalidation prevalidation) {
+        try {
+            RequestContext context = validateDeleteOrderRq(deleteOrderRq, prevalidation);
+            Security security = context.getSecurity();
+            security.deleteOrder(deleteOrderRq, context);
+            publish(new OrderDeletedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId()));
             if (security.getState() == MatchingState.AUCTION)
                 publishOpeningData(security);
         } catch (InvalidRequestException ex) {
-            eventPublisher.publish(new OrderRejectedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId(), ex.getReasons()));
+            publish(new OrderRejectedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId(), ex.getReasons()));
         }
     }
 
+    public void rejectUnprocessed(EnterOrderRq enterOrderRq, String reason) {
+        rejectUnprocessed(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), reason);
+    }
+
+    public void rejectUnprocessed(long requestId, long orderId, String reason) {
+        publish(new OrderRejectedEvent(requestId, orderId, List.of(reason)));
+    }
+
+    public void acknowledgeAnnihilatedDelete(DeleteOrderRq deleteOrderRq) {
+        publish(new OrderDeletedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId()));
+    }
+
+    public void handleBatch(BatchRq batchRq) {
+        handleBatch(batchRq, prevalidate(batchRq));
+    }
+
+    public void handleBatch(BatchRq batchRq, List<Prevalidation> prevalidations) {
+        handleBatch(batchRq, prevalidations, Collections.nCopies(prevalidations.size(), null));
+    }
+
+    public void handleBatch(BatchRq batchRq, List<Prevalidation> prevalidations, List<String> admissionRejections) {
+        Set<Security> securities = new LinkedHashSet<>();
+        prevalidations.forEach(prevalidation -> securities.add(prevalidation.getContext().getSecurity()));
+        securities.remove(null);
+        List<Event> events = new ArrayList<>();
+        securities.forEach(security -> security.getBookVersion().beginWrite());
+        batchEvents.set(events);
+        try {
+            for (int i = 0; i < prevalidations.size(); i++) {
+                BatchOperation operation = batchRq.getOperations().get(i);
+                if (admissionRejections.get(i) != null)
+                    rejectUnprocessed(operation.getEnterOrderRq(), admissionRejections.get(i));
+                else if (operation.getEnterOrderRq() != null)
+                    handleEnterOrder(operation.getEnterOrderRq(), prevalidations.get(i));
+                else
+                    handleDeleteOrder(operation.getDeleteOrderRq(), prevalidations.get(i));
+            }
+        } finally {
+            batchEvents.remove();
+            securities.forEach(security -> security.getBookVersion().endWrite());
+        }
+        eventPublisher.publish(new BatchResultEvent(batchRq.getRequestId(), events));
+        securities.forEach(this::publishMarketDepth);
+    }
+
+    public void handleMassCancel(MassCancelRq massCancelRq) {
+        List<String> errors = new LinkedList<>();
+        Security requestedSecurity = null;
+        if (massCancelRq.getSecurityIsin() != null) {
+            requestedSecurity = securityRepository.findSecurityByIsin(massCancelRq.getSecurityIsin());
+            if (requestedSecurity == null)
+                errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        }
+        if (massCancelRq.getBrokerId() != null && brokerRepository.findBrokerById(massCancelRq.getBrokerId()) == null)
+            errors.add(Message.UNKNOWN_BROKER_ID);
+        if (massCancelRq.getShareholderId() != null && shareholderRepository.findShareholderById(massCancelRq.getShareholderId()) == null)
+            errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
+        if (massCancelRq.getSecurityIsin() == null && massCancelRq.getBrokerId() == null && massCancelRq.getShareholderId() == null)
+            errors.add(Message.MASS_CANCEL_WITHOUT_FILTER);
+        if (!errors.isEmpty()) {
+            eventPublisher.publish(new OrderRejectedEvent(massCancelRq.getRequestId(), 0, errors));
+            return;
+        }
+
+        List<Security> securities = requestedSecurity != null ? List.of(requestedSecurity) : securityRepository.findAllSecurities();
+        List<Event> events = new ArrayList<>();
+        List<Security> touched = new ArrayList<>();
+        for (Security security : securities) {
+            List<Order> cancelled;
+            security.getBookVersion().beginWrite();
+            try {
+                cancelled = security.cancelOrders(massCancelRq);
+            } finally {
+                security.getBookVersion().endWrite();
+            }
+            if (cancelled.isEmpty())
+                continue;
+            touched.add(security);
+            cancelled.forEach(order -> events.add(new OrderDeletedEvent(massCancelRq.getRequestId(), order.getOrderId())));
+        }
+        eventPublisher.publish(new BatchResultEvent(massCancelRq.getRequestId(), events));
+        for (Security security : touched) {
+            if (security.getState() == MatchingState.AUCTION)
+                publishOpeningData(security);
+            publishMarketDepth(security);
+        }
+    }
+
+    public void expireOrders(Predicate<String> ownsSecurity) {
+        long now = EngineClock.current().nanos();
+        for (Security security : securityRepository.findAllSecurities()) {
+            if (!ownsSecurity.test(security.getIsin()))
+                continue;
+            List<Order> expired;
+            security.getBookVersion().beginWrite();
+            try {
+                expired = security.expireOrders(now);
+            } finally {
+                security.getBookVersion().endWrite();
+            }
+            if (expired.isEmpty())
+                continue;
+            expired.forEach(order -> eventPublisher.publish(new OrderExpiredEvent(security.getIsin(), order.getRequestId(), order.getOrderId())));
+            if (security.getState() == MatchingState.AUCTION)
+                publishOpeningData(security);
+            publishMarketDepth(security);
+        }
+    }
+
+    private void publishMarketDepth(Security security) {
+        if (security == null || batchEvents.get() != null)
+            return;
+        MarketDepth marketDepth = security.getMarketDepth();
+        List<MarketDepth.Update> updates = marketDepth.collectUpdates(security.getOrderBook());
+        for (MarketDepth.Update update : updates) {
+            PriceLevel level = update.level();
+            eventPublisher.publish(new PriceLevelUpdatedEvent(security.getIsin(), update.sequence(), update.side(), update.action(), level.price(), level.quantity(), level.orderCount()));
+        }
+        if (!updates.isEmpty() && security.refreshTopOfBook()) {
+            TopOfBook topOfBook = security.getTopOfBook();
+            eventPublisher.publish(new BestBidAndOfferEvent(security.getIsin(), topOfBook.bid(), topOfBook.ask()));
+        }
+        TradeStatistics.Bar session = security.getTradeStatistics().takeChanged() ? security.getTradeStatistics().session() : null;
+        if (session != null)
+            eventPublisher.publish(new TradeStatisticsEvent(security.getIsin(), session.open(), session.high(), session.low(),
+                    session.close(), session.volume(), session.turnover()));
+        if (marketDepth.isSnapshotDue(depthSnapshotInterval))
+            publishDepthSnapshot(security);
+    }
+
+    public void publishDepthSnapshot(Security security) {
+        OrderBook orderBook = security.getOrderBook();
+        eventPublisher.publish(new DepthSnapshotEvent(security.getIsin(), security.getMarketDepth().getSequence(),
+                orderBook.levels(Side.BUY), orderBook.levels(Side.SELL)));
+    }
+
     private void publishOpeningData(Security security){
         OpeningData openingData = security.findOpeningData();
-        eventPublisher.publish(new OpeningPriceEvent(security.getIsin(), openingData.getOpeningPrice(), openingData.getTradableQuantity()));
+        publish(new OpeningPriceEvent(security.getIsin(), openingData.getOpeningPrice(), openingData.getTradableQuantity()));
     }
     private void processingStopLimitOrders(Security security, SecurityStatus securityStatus){
         LinkedList<MatchResult> results = security.handleExecutableOrders(securityStatus.trades().getLast().getPrice(), matcher);
-        publishStopLimitOrderEvents(results);
+        publishStopLimitOrderEvents(results, this::publish);
     }
 
     public void handleChangeMatchingState(ChangeMatchingStateRq changeMatchingStateRq) {
         Security security = securityRepository.findSecurityByIsin(changeMatchingStateRq.getSecurityIsin());
         if (security == null)
             return;
-        if (security.getState() == MatchingState.AUCTION){
-            LinkedList<MatchResult> results = handleAuctionedOrders(security);
+        changeMatchingState(List.of(security), changeMatchingStateRq.getTargetState());
+    }
+
+    public void handleBulkChangeMatchingState(BulkChangeMatchingStateRq bulkChangeMatchingStateRq) {
+        List<Security> securities;
+        if (bulkChangeMatchingStateRq.getSecurityIsins().isEmpty())
+            securities = securityRepository.findAllSecurities();
+        else
+            securities = bulkChangeMatchingStateRq.getSecurityIsins().stream()
+                    .distinct()
+                    .map(securityRepository::findSecurityByIsin)
+                    .filter(Objects::nonNull)
+                    .toList();
+        changeMatchingState(securities, bulkChangeMatchingStateRq.getTargetState());
+    }
+
+    private record Uncross(Security security, LinkedList<MatchResult> results, LedgerDelta ledger, List<Event> events) {
+    }
+
+    private void changeMatchingState(List<Security> securities, MatchingState targetState) {
+        securities.forEach(security -> security.getBookVersion().beginWrite());
+        try {
+            uncrossAll(securities, targetState);
+        } finally {
+            securities.forEach(security -> security.getBookVersion().endWrite());
+        }
+        securities.forEach(this::publishMarketDepth);
+    }
+
+    private void uncrossAll(List<Security> securities, MatchingState targetState) {
+        List<Uncross> uncrosses = securities.size() == 1
+                ? List.of(uncross(securities.get(0)))
+                : securities.parallelStream().map(this::uncross).toList();
+        for (Uncross uncross : uncrosses)
+            uncross.ledger().apply();
+        for (Uncross uncross : uncrosses) {
+            finishMatchingStateChange(uncross, targetState);
+            uncross.events().forEach(this::publish);
+        }
+    }
+
+    private Uncross uncross(Security security) {
+        LedgerDelta ledger = new LedgerDelta();
+        List<Event> events = new ArrayList<>();
+        LinkedList<MatchResult> results = new LinkedList<>();
+        if (security.getState() == MatchingState.AUCTION)
+            results = handleAuctionedOrders(security, ledger, events::add);
+        return new Uncross(security, results, ledger, events);
+    }
+
+    private void finishMatchingStateChange(Uncross uncross, MatchingState targetState) {
+        Security security = uncross.security();
+        LinkedList<MatchResult> results = uncross.results();
+        if (!results.isEmpty() && !results.get(0).trades().isEmpty()) {
             security.checkExecutableOrders(results.get(0).trades().getLast().getPrice());
 
             LinkedList<MatchResult> activationResults;
-            if (changeMatchingStateRq.getTargetState() == MatchingState.AUCTION)
+            if (targetState == MatchingState.AUCTION)
                 activationResults = security.enqueueExecutableOrders();
             else
                 activationResults = security.handleExecutableOrders(results.get(0).trades().getLast().getPrice(), matcher);
-            publishStopLimitOrderEvents(activationResults);
+            publishStopLimitOrderEvents(activationResults, uncross.events()::add);
         }
-        security.changeMatchingState(changeMatchingStateRq.getTargetState());
-        eventPublisher.publish(new SecurityStateChangedEvent(changeMatchingStateRq.getSecurityIsin(), changeMatchingStateRq.getTargetState()));
+        security.changeMatchingState(targetState);
+        uncross.events().add(new SecurityStateChangedEvent(security.getIsin(), targetState));
     }
 
-    private void validateEnterOrderRq(EnterOrderRq enterOrderRq) throws InvalidRequestException {
-        List<String> errors = new LinkedList<>();
-        if (enterOrderRq.getOrderId() <= 0)
-            errors.add(Message.INVALID_ORDER_ID);
-        if (enterOrderRq.getQuantity() <= 0)
-            errors.add(Message.ORDER_QUANTITY_NOT_POSITIVE);
-        if (enterOrderRq.getPrice() <= 0)
-            errors.add(Message.ORDER_PRICE_NOT_POSITIVE);
-        if (enterOrderRq.getStopPrice() < 0)
-            errors.add(Message.ORDER_STOP_PRICE_NEGATIVE);
-        Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
-        if (security == null)
-            errors.add(Message.UNKNOWN_SECURITY_ISIN);
-        else {
-            if (security.getState() == MatchingState.AUCTION && enterOrderRq.getStopPrice() != 0){
+    private RequestContext validateEnterOrderRq(EnterOrderRq enterOrderRq, Prevalidation prevalidation) throws InvalidRequestException {
+        List<String> errors = new LinkedList<>(prevalidation.getErrors());
+        RequestContext context = prevalidation.getContext();
+        Security security = context.getSecurity();
+        if (security != null && security.getState() == MatchingState.AUCTION) {
+            List<String> stateErrors = new LinkedList<>();
+            if (enterOrderRq.getStopPrice() != 0){
                 if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
-                    errors.add(Message.CANNOT_REQUEST_STOP_LIMIT_ORDER_IN_AUCTION_STATE);
+                    stateErrors.add(Message.CANNOT_REQUEST_STOP_LIMIT_ORDER_IN_AUCTION_STATE);
                 else
-                    errors.add(Message.CANNOT_UPDATE_STOP_LIMIT_ORDER_IN_AUCTION_STATE);
+                    stateErrors.add(Message.CANNOT_UPDATE_STOP_LIMIT_ORDER_IN_AUCTION_STATE);
             }
-            if (security.getState() == MatchingState.AUCTION && enterOrderRq.getMinimumExecutionQuantity() != 0){
-                errors.add(Message.CANNOT_REQUEST_MINIMUM_QUANTITY_EXECUTION_ORDER_IN_AUCTION_STATE);
-            }
-            if (enterOrderRq.getQuantity() % security.getLotSize() != 0)
-                errors.add(Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE);
-            if (enterOrderRq.getPrice() % security.getTickSize() != 0)
-                errors.add(Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE);
+            if (enterOrderRq.getMinimumExecutionQuantity() != 0)
+                stateErrors.add(Message.CANNOT_REQUEST_MINIMUM_QUANTITY_EXECUTION_ORDER_IN_AUCTION_STATE);
+            if (enterOrderRq.getTimeInForce().isImmediate())
+                stateErrors.add(Message.CANNOT_REQUEST_IMMEDIATE_ORDER_IN_AUCTION_STATE);
+            errors.addAll(prevalidation.getStateErrorsIndex(), stateErrors);
         }
-        if (brokerRepository.findBrokerById(enterOrderRq.getBrokerId()) == null)
-            errors.add(Message.UNKNOWN_BROKER_ID);
-        if (shareholderRepository.findShareholderById(enterOrderRq.getShareholderId()) == null)
-            errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
-        if (enterOrderRq.getPeakSize() < 0 || enterOrderRq.getPeakSize() >= enterOrderRq.getQuantity())
-            errors.add(Message.INVALID_PEAK_SIZE);
-        if (enterOrderRq.getMinimumExecutionQuantity() < 0){
-            errors.add(Message.MINIMUM_EXECUTION_QUANTITY_NOT_POSITIVE);
-        }
-        if (enterOrderRq.getMinimumExecutionQuantity() > enterOrderRq.getQuantity()){
-            errors.add(Message.INVALID_MINIMUM_EXECUTION_QUANTITY);
-        }
-        if (enterOrderRq.getStopPrice() != 0 && enterOrderRq.getMinimumExecutionQuantity() != 0) {
-            errors.add(Message.CANNOT_SPECIFY_MINIMUM_EXECUTION_QUANTITY_FOR_A_STOP_LIMIT_ORDER);
-        }
-        if (enterOrderRq.getStopPrice() != 0 && enterOrderRq.getPeakSize() != 0)
-            errors.add(Message.ORDER_CANNOT_BE_BOTH_A_STOP_LIMIT_AND_AN_ICEBERG);
         if (!errors.isEmpty())
             throw new InvalidRequestException(errors);
-        else {
-            if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
-                return;
-            else
-                updateOrderValidation(enterOrderRq, security);
-        }
+        if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
+            return context;
+        else
+            return context.target(updateOrderValidation(enterOrderRq, security));
     }
 
-    private void validateDeleteOrderRq(DeleteOrderRq deleteOrderRq) throws InvalidRequestException {
-        List<String> errors = new LinkedList<>();
-        if (deleteOrderRq.getOrderId() <= 0)
-            errors.add(Message.INVALID_ORDER_ID);
-        Security security = securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin());
-        if (security == null)
-            errors.add(Message.UNKNOWN_SECURITY_ISIN);
-        if (!errors.isEmpty())
-            throw new InvalidRequestException(errors);
-        else
-            deleteOrderValidation(deleteOrderRq, security);
+    private RequestContext validateDeleteOrderRq(DeleteOrderRq deleteOrderRq, Prevalidation prevalidation) throws InvalidRequestException {
+        if (!prevalidation.getErrors().isEmpty())
+            throw new InvalidRequestException(prevalidation.getErrors());
+        RequestContext context = prevalidation.getContext();
+        return context.target(deleteOrderValidation(deleteOrderRq, context.getSecurity()));
     }
 
-    private void updateOrderValidation(EnterOrderRq updateOrderRq, Security security) throws InvalidRequestException {
+    private Order updateOrderValidation(EnterOrderRq updateOrderRq, Security security) throws InvalidRequestException {
         Order order;
         if (updateOrderRq.getStopPrice() != 0)
             order = security.getInactiveOrderBook().findByOrderId(updateOrderRq.getSide(), updateOrderRq.getOrderId());
@@ -247,8 +494,9 @@ public class OrderHandler {
             throw new InvalidRequestException(Message.CANNOT_SPECIFY_PEAK_SIZE_FOR_A_NON_ICEBERG_ORDER);
         if (order.getMinimumExecutionQuantity() != updateOrderRq.getMinimumExecutionQuantity())
             throw new InvalidRequestException(Message.CANNOT_CHANGE_MINIMUM_EXECUTION_QUANTITY);
+        return order;
     }
-    private void deleteOrderValidation(DeleteOrderRq deleteOrderRq, Security security) throws InvalidRequestException {
+    private Order deleteOrderValidation(DeleteOrderRq deleteOrderRq, Security security) throws InvalidRequestException {
         Order order = security.getOrderBook().findByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
         if (order == null) {
             order = security.getInactiveOrderBook().findByOrderId(deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
@@ -257,5 +505,6 @@ public class OrderHandler {
             else if (security.getState() == MatchingState.AUCTION)
                 throw new InvalidRequestException(Message.CANNOT_DELETE_STOP_LIMIT_ORDER_IN_AUCTION_STATE);
         }
+        return order;
     }
 }
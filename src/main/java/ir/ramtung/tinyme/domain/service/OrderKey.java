@@ -0,0 +1,6 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+
+record OrderKey(String securityIsin, Side side, long orderId) {
+}
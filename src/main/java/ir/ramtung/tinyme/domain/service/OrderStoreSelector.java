@@ -0,0 +1,12 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.OrderStoreBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderStoreSelector {
+    public OrderStoreSelector(@Value("${orderStore:HEAP}") OrderStoreBackend backend) {
+        OrderStoreBackend.use(backend);
+    }
+}
@@ -0,0 +1,15 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.RequestContext;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class Prevalidation {
+    private final RequestContext context;
+    private final List<String> errors;
+    private final int stateErrorsIndex;
+}
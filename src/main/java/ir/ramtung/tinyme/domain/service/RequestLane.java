@@ -0,0 +1,119 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+class RequestLane {
+    static final int DELETE = 0;
+    static final int UPDATE = 1;
+    static final int NEW = 2;
+    private static final int ORDERED = 3;
+
+    private record Task(long sequence, int priority, OrderKey key, Runnable action) {
+    }
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final int priorityBacklog;
+    // Only the oldest queued task of each order may run, so each priority keeps a heap of just those heads.
+    private final List<PriorityQueue<Task>> runnable = List.of(runnableHeap(), runnableHeap(), runnableHeap());
+    private final ArrayDeque<Task> ordered = new ArrayDeque<>();
+    private final HashMap<OrderKey, ArrayDeque<Task>> queuedByKey = new HashMap<>();
+    private final Thread worker;
+    private long nextSequence;
+    private int size;
+    private boolean stopped;
+
+    RequestLane(String name, int priorityBacklog) {
+        this.priorityBacklog = priorityBacklog;
+        worker = new Thread(this::work, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static PriorityQueue<Task> runnableHeap() {
+        return new PriorityQueue<>(Comparator.comparingLong(Task::sequence));
+    }
+
+    synchronized void submit(int priority, OrderKey key, Runnable action) {
+        Task task = new Task(nextSequence++, priority, key, action);
+        ArrayDeque<Task> queued = queuedByKey.computeIfAbsent(key, k -> new ArrayDeque<>());
+        queued.addLast(task);
+        if (queued.size() == 1)
+            runnable.get(priority).add(task);
+        size++;
+        notifyAll();
+    }
+
+    synchronized void submitOrdered(Runnable action) {
+        ordered.addLast(new Task(nextSequence++, ORDERED, null, action));
+        size++;
+        notifyAll();
+    }
+
+    synchronized int backlog() {
+        return size;
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    private synchronized Task take() throws InterruptedException {
+        while (size == 0 && !stopped)
+            wait();
+        if (size == 0)
+            return null;
+        Task task = priorityBacklog > 0 && size >= priorityBacklog ? takeByPriority() : null;
+        if (task == null)
+            task = takeOldest();
+        size--;
+        if (task.key() != null) {
+            ArrayDeque<Task> queued = queuedByKey.get(task.key());
+            queued.removeFirst();
+            if (queued.isEmpty())
+                queuedByKey.remove(task.key());
+            else
+                runnable.get(queued.peekFirst().priority()).add(queued.peekFirst());
+        }
+        return task;
+    }
+
+    private Task takeOldest() {
+        PriorityQueue<Task> oldest = null;
+        for (PriorityQueue<Task> heap : runnable)
+            if (!heap.isEmpty() && (oldest == null || heap.peek().sequence() < oldest.peek().sequence()))
+                oldest = heap;
+        if (oldest == null || !ordered.isEmpty() && ordered.peekFirst().sequence() < oldest.peek().sequence())
+            return ordered.removeFirst();
+        return oldest.poll();
+    }
+
+    private Task takeByPriority() {
+        long firstOrdered = ordered.isEmpty() ? Long.MAX_VALUE : ordered.peekFirst().sequence();
+        for (PriorityQueue<Task> heap : runnable)
+            if (!heap.isEmpty() && heap.peek().sequence() < firstOrdered)
+                return heap.poll();
+        return null;
+    }
+
+    private void work() {
+        try {
+            Task task;
+            while ((task = take()) != null) {
+                try {
+                    task.action().run();
+                } catch (RuntimeException ex) {
+                    log.log(Level.SEVERE, "Request processing failed", ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
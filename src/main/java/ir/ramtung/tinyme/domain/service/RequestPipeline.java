@@ -0,0 +1,224 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.request.BatchOperation;
+import ir.ramtung.tinyme.messaging.request.BatchRq;
+import ir.ramtung.tinyme.messaging.request.BulkChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class RequestPipeline {
+    private final OrderHandler orderHandler;
+    private final ExecutorService validationExecutor;
+    private final RequestLane[] lanes;
+    private final InboundConflator conflator;
+    private final AdmissionController admissionController;
+    private final ScheduledExecutorService expiryScheduler;
+
+    public RequestPipeline(OrderHandler orderHandler, int validationThreads) {
+        this(orderHandler, validationThreads, 1);
+    }
+
+    public RequestPipeline(OrderHandler orderHandler, int validationThreads, int matchingLanes) {
+        this(orderHandler, validationThreads, matchingLanes, false);
+    }
+
+    public RequestPipeline(OrderHandler orderHandler, int validationThreads, int matchingLanes, boolean inboundConflation) {
+        this(orderHandler, validationThreads, matchingLanes, inboundConflation, 0);
+    }
+
+    public RequestPipeline(OrderHandler orderHandler, int validationThreads, int matchingLanes, boolean inboundConflation, int priorityBacklog) {
+        this(orderHandler, AdmissionController.unlimited(), validationThreads, matchingLanes, inboundConflation, priorityBacklog, 0);
+    }
+
+    @Autowired
+    public RequestPipeline(OrderHandler orderHandler,
+                           AdmissionController admissionController,
+                           @Value("${validationThreads:4}") int validationThreads,
+                           @Value("${matchingLanes:1}") int matchingLanes,
+                           @Value("${inboundConflation:false}") boolean inboundConflation,
+                           @Value("${priorityBacklog:0}") int priorityBacklog,
+                           @Value("${expiryCheckInterval:0}") long expiryCheckInterval) {
+        this.orderHandler = orderHandler;
+        this.admissionController = admissionController;
+        this.conflator = inboundConflation ? new InboundConflator() : null;
+        this.validationExecutor = Executors.newFixedThreadPool(validationThreads);
+        this.lanes = new RequestLane[matchingLanes];
+        for (int i = 0; i < matchingLanes; i++)
+            lanes[i] = new RequestLane("matching-lane-" + i, priorityBacklog);
+        this.expiryScheduler = expiryCheckInterval > 0 ? Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "order-expiry");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (expiryScheduler != null)
+            expiryScheduler.scheduleAtFixedRate(this::expireOrders, expiryCheckInterval, expiryCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void submit(EnterOrderRq enterOrderRq) {
+        String admissionRejection = admissionController.admit(enterOrderRq);
+        if (admissionRejection != null) {
+            reject(enterOrderRq.getSecurityIsin(), enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), admissionRejection);
+            return;
+        }
+        CompletableFuture<Prevalidation> prevalidation = new CompletableFuture<>();
+        int priority = enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER ? RequestLane.NEW : RequestLane.UPDATE;
+        OrderKey key = new OrderKey(enterOrderRq.getSecurityIsin(), enterOrderRq.getSide(), enterOrderRq.getOrderId());
+        InboundConflator.Ticket ticket = conflator == null ? null : conflator.ticket(enterOrderRq);
+        Runnable task = admissionController.tryAcquire(() -> {
+            String rejection = ticket == null ? null : conflator.startEnter(ticket);
+            if (rejection == null)
+                orderHandler.handleEnterOrder(enterOrderRq, prevalidation.join());
+            else
+                orderHandler.rejectUnprocessed(enterOrderRq, rejection);
+        });
+        if (task == null) {
+            reject(enterOrderRq.getSecurityIsin(), enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), Message.ENGINE_OVERLOADED);
+            return;
+        }
+        prevalidation.completeAsync(() -> orderHandler.prevalidate(enterOrderRq), validationExecutor);
+        sequence(priority, key, ticket, task);
+    }
+
+    public void submit(DeleteOrderRq deleteOrderRq) {
+        CompletableFuture<Prevalidation> prevalidation = new CompletableFuture<>();
+        OrderKey key = new OrderKey(deleteOrderRq.getSecurityIsin(), deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
+        InboundConflator.Ticket ticket = conflator == null ? null : conflator.ticket(deleteOrderRq);
+        Runnable task = admissionController.tryAcquire(() -> {
+            if (ticket != null && conflator.startDelete(ticket))
+                orderHandler.acknowledgeAnnihilatedDelete(deleteOrderRq);
+            else
+                orderHandler.handleDeleteOrder(deleteOrderRq, prevalidation.join());
+        });
+        if (task == null) {
+            reject(deleteOrderRq.getSecurityIsin(), deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId(), Message.ENGINE_OVERLOADED);
+            return;
+        }
+        prevalidation.completeAsync(() -> orderHandler.prevalidate(deleteOrderRq), validationExecutor);
+        sequence(RequestLane.DELETE, key, ticket, task);
+    }
+
+    public synchronized void submit(ChangeMatchingStateRq changeMatchingStateRq) {
+        laneOf(changeMatchingStateRq.getSecurityIsin()).submitOrdered(() -> orderHandler.handleChangeMatchingState(changeMatchingStateRq));
+    }
+
+    public void submit(BulkChangeMatchingStateRq bulkChangeMatchingStateRq) {
+        barrier(() -> orderHandler.handleBulkChangeMatchingState(bulkChangeMatchingStateRq));
+    }
+
+    public void submit(BatchRq batchRq) {
+        List<RequestLane> batchLanes = batchRq.getOperations().stream()
+                .map(BatchOperation::getSecurityIsin)
+                .map(this::laneOf)
+                .distinct()
+                .toList();
+        boolean singleLane = batchLanes.size() == 1;
+        CompletableFuture<List<Prevalidation>> prevalidations = new CompletableFuture<>();
+        List<String> admissionRejections = new ArrayList<>();
+        Runnable task = admissionController.tryAcquire(() -> orderHandler.handleBatch(batchRq,
+                singleLane ? prevalidations.join() : orderHandler.prevalidate(batchRq), admissionRejections), batchRq.getOperations().size());
+        if (task == null) {
+            reject(batchRq.getOperations().isEmpty() ? null : batchRq.getOperations().get(0).getSecurityIsin(),
+                    batchRq.getRequestId(), 0, Message.ENGINE_OVERLOADED);
+            return;
+        }
+        for (BatchOperation operation : batchRq.getOperations())
+            admissionRejections.add(operation.getEnterOrderRq() != null ? admissionController.admit(operation.getEnterOrderRq()) : null);
+        if (singleLane) {
+            prevalidations.completeAsync(() -> orderHandler.prevalidate(batchRq), validationExecutor);
+            synchronized (this) {
+                batchLanes.get(0).submitOrdered(task);
+            }
+        } else
+            barrier(task);
+    }
+
+    public synchronized void submit(MassCancelRq massCancelRq) {
+        Runnable task = admissionController.tryAcquire(() -> orderHandler.handleMassCancel(massCancelRq));
+        if (task == null)
+            reject(massCancelRq.getSecurityIsin(), massCancelRq.getRequestId(), 0, Message.ENGINE_OVERLOADED);
+        else if (massCancelRq.getSecurityIsin() != null)
+            laneOf(massCancelRq.getSecurityIsin()).submitOrdered(task);
+        else
+            barrier(task);
+    }
+
+    public synchronized void reject(String securityIsin, long requestId, long orderId, String reason) {
+        laneOf(securityIsin).submitOrdered(() -> orderHandler.rejectUnprocessed(requestId, orderId, reason));
+    }
+
+    public synchronized void expireOrders() {
+        for (RequestLane lane : lanes)
+            lane.submitOrdered(() -> orderHandler.expireOrders(securityIsin -> laneOf(securityIsin) == lane));
+    }
+
+    private synchronized void barrier(Runnable task) {
+        if (lanes.length == 1) {
+            lanes[0].submitOrdered(task);
+            return;
+        }
+        CountDownLatch arrived = new CountDownLatch(lanes.length);
+        CountDownLatch done = new CountDownLatch(1);
+        lanes[0].submitOrdered(() -> {
+            arrived.countDown();
+            await(arrived);
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        for (int i = 1; i < lanes.length; i++)
+            lanes[i].submitOrdered(() -> {
+                arrived.countDown();
+                await(done);
+            });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted at a lane barrier", ex);
+        }
+    }
+
+    private RequestLane laneOf(String securityIsin) {
+        if (lanes.length == 1 || securityIsin == null)
+            return lanes[0];
+        return lanes[Math.floorMod(securityIsin.hashCode(), lanes.length)];
+    }
+
+    private synchronized void sequence(int priority, OrderKey key, InboundConflator.Ticket ticket, Runnable task) {
+        if (ticket != null)
+            conflator.enqueue(ticket);
+        laneOf(key.securityIsin()).submit(priority, key, task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expiryScheduler != null)
+            expiryScheduler.shutdown();
+        validationExecutor.shutdown();
+        for (RequestLane lane : lanes)
+            lane.stop();
+    }
+}
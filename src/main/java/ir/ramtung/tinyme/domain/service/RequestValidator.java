@@ -0,0 +1,92 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.RequestContext;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import ir.ramtung.tinyme.domain.entity.TimeInForce;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public class RequestValidator {
+    private final SecurityRepository securityRepository;
+    private final BrokerRepository brokerRepository;
+    private final ShareholderRepository shareholderRepository;
+
+    public RequestValidator(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository) {
+        this.securityRepository = securityRepository;
+        this.brokerRepository = brokerRepository;
+        this.shareholderRepository = shareholderRepository;
+    }
+
+    public Prevalidation prevalidate(EnterOrderRq enterOrderRq) {
+        List<String> errors = new LinkedList<>();
+        if (enterOrderRq.getOrderId() <= 0)
+            errors.add(Message.INVALID_ORDER_ID);
+        if (enterOrderRq.getQuantity() <= 0)
+            errors.add(Message.ORDER_QUANTITY_NOT_POSITIVE);
+        if (enterOrderRq.getPrice() <= 0)
+            errors.add(Message.ORDER_PRICE_NOT_POSITIVE);
+        if (enterOrderRq.getStopPrice() < 0)
+            errors.add(Message.ORDER_STOP_PRICE_NEGATIVE);
+        int stateErrorsIndex = errors.size();
+        Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
+        if (security == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        else {
+            if (enterOrderRq.getQuantity() % security.getLotSize() != 0)
+                errors.add(Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE);
+            if (enterOrderRq.getPrice() % security.getTickSize() != 0)
+                errors.add(Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE);
+        }
+        Broker broker = brokerRepository.findBrokerById(enterOrderRq.getBrokerId());
+        if (broker == null)
+            errors.add(Message.UNKNOWN_BROKER_ID);
+        Shareholder shareholder = shareholderRepository.findShareholderById(enterOrderRq.getShareholderId());
+        if (shareholder == null)
+            errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
+        if (enterOrderRq.getPeakSize() < 0 || enterOrderRq.getPeakSize() >= enterOrderRq.getQuantity())
+            errors.add(Message.INVALID_PEAK_SIZE);
+        if (enterOrderRq.getMinimumExecutionQuantity() < 0)
+            errors.add(Message.MINIMUM_EXECUTION_QUANTITY_NOT_POSITIVE);
+        if (enterOrderRq.getMinimumExecutionQuantity() > enterOrderRq.getQuantity())
+            errors.add(Message.INVALID_MINIMUM_EXECUTION_QUANTITY);
+        if (enterOrderRq.getStopPrice() != 0 && enterOrderRq.getMinimumExecutionQuantity() != 0)
+            errors.add(Message.CANNOT_SPECIFY_MINIMUM_EXECUTION_QUANTITY_FOR_A_STOP_LIMIT_ORDER);
+        if (enterOrderRq.getStopPrice() != 0 && enterOrderRq.getPeakSize() != 0)
+            errors.add(Message.ORDER_CANNOT_BE_BOTH_A_STOP_LIMIT_AND_AN_ICEBERG);
+        if (enterOrderRq.getRequestType() == OrderEntryType.UPDATE_ORDER) {
+            if (enterOrderRq.getTimeInForce() != TimeInForce.GTC || enterOrderRq.getExpiryTime() != null)
+                errors.add(Message.CANNOT_CHANGE_TIME_IN_FORCE);
+        } else {
+            if (enterOrderRq.getTimeInForce().isImmediate() && enterOrderRq.getStopPrice() != 0)
+                errors.add(Message.CANNOT_SPECIFY_TIME_IN_FORCE_FOR_A_STOP_LIMIT_ORDER);
+            if (enterOrderRq.getTimeInForce().needsExpiryTime() && enterOrderRq.getExpiryTime() == null)
+                errors.add(Message.EXPIRY_TIME_REQUIRED);
+            if (!enterOrderRq.getTimeInForce().needsExpiryTime() && enterOrderRq.getExpiryTime() != null)
+                errors.add(Message.CANNOT_SPECIFY_EXPIRY_TIME);
+            if (enterOrderRq.getExpiryTime() != null && enterOrderRq.getEntryTime() != null
+                    && !enterOrderRq.getExpiryTime().isAfter(enterOrderRq.getEntryTime()))
+                errors.add(Message.EXPIRY_TIME_NOT_AFTER_ENTRY_TIME);
+        }
+        return new Prevalidation(new RequestContext().resolve(security, broker, shareholder), errors, stateErrorsIndex);
+    }
+
+    public Prevalidation prevalidate(DeleteOrderRq deleteOrderRq) {
+        List<String> errors = new LinkedList<>();
+        if (deleteOrderRq.getOrderId() <= 0)
+            errors.add(Message.INVALID_ORDER_ID);
+        Security security = securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin());
+        if (security == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        return new Prevalidation(new RequestContext().resolve(security, null, null), errors, errors.size());
+    }
+}
@@ -0,0 +1,38 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.time.Instant;
+
+public class SystemEngineClock extends EngineClock {
+    private static final long RECALIBRATION_INTERVAL_NANOS = 1_000_000_000L;
+
+    private record Calibration(long epochNanos, long monotonicNanos) {
+        long project(long monotonicNanos) {
+            return epochNanos + (monotonicNanos - this.monotonicNanos);
+        }
+    }
+
+    private volatile Calibration calibration;
+
+    public SystemEngineClock() {
+        calibration = new Calibration(toEpochNanos(Instant.now()), System.nanoTime());
+    }
+
+    @Override
+    public long nanos() {
+        long monotonicNanos = System.nanoTime();
+        Calibration current = calibration;
+        if (monotonicNanos - current.monotonicNanos() >= RECALIBRATION_INTERVAL_NANOS)
+            current = recalibrate();
+        return current.project(monotonicNanos);
+    }
+
+    private synchronized Calibration recalibrate() {
+        Calibration previous = calibration;
+        long monotonicNanos = System.nanoTime();
+        if (monotonicNanos - previous.monotonicNanos() < RECALIBRATION_INTERVAL_NANOS)
+            return previous;
+        long wallNanos = toEpochNanos(Instant.now());
+        calibration = new Calibration(Math.max(wallNanos, previous.project(monotonicNanos)), monotonicNanos);
+        return calibration;
+    }
+}
@@ -0,0 +1,59 @@
+package ir.ramtung.tinyme.domain.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+public final class TradingSession {
+    private static volatile TradingSession current = new TradingSession(LocalTime.MIDNIGHT);
+
+    public static TradingSession current() {
+        return current;
+    }
+
+    public static void use(TradingSession session) {
+        current = session;
+    }
+
+    private record Window(long open, long close) {
+        private boolean contains(long nanos) {
+            return open <= nanos && nanos < close;
+        }
+    }
+
+    private final LocalTime close;
+    private volatile Window window = new Window(0, 0);
+
+    public TradingSession(LocalTime close) {
+        this.close = close;
+    }
+
+    public LocalTime getClose() {
+        return close;
+    }
+
+    public long openOf(long nanos) {
+        return windowOf(nanos).open;
+    }
+
+    public long closeOf(long nanos) {
+        return windowOf(nanos).close;
+    }
+
+    public long closeOn(LocalDate date) {
+        return closeOf(EngineClock.toEpochNanos(date.atStartOfDay()));
+    }
+
+    private Window windowOf(long nanos) {
+        Window cached = window;
+        if (cached.contains(nanos))
+            return cached;
+        LocalDateTime time = EngineClock.toLocalDateTime(nanos);
+        LocalDateTime next = time.toLocalDate().atTime(close);
+        if (!next.isAfter(time))
+            next = next.plusDays(1);
+        cached = new Window(EngineClock.toEpochNanos(next.minusDays(1)), EngineClock.toEpochNanos(next));
+        window = cached;
+        return cached;
+    }
+}
@@ -0,0 +1,13 @@
+package ir.ramtung.tinyme.domain.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+@Component
+public class TradingSessionSelector {
+    public TradingSessionSelector(@Value("${sessionClose:00:00}") String sessionClose) {
+        TradingSession.use(new TradingSession(LocalTime.parse(sessionClose)));
+    }
+}
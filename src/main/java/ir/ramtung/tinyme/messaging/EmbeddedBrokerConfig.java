@@ -0,0 +1,24 @@
+package ir.ramtung.tinyme.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("embedded")
+public class EmbeddedBrokerConfig {
+    @Bean
+    public ArtemisConfigurationCustomizer remoteAcceptorCustomizer(@Value("${embeddedAcceptorUrl:}") String acceptorUrl) {
+        return configuration -> {
+            if (acceptorUrl.isBlank())
+                return;
+            try {
+                configuration.addAcceptorConfiguration("remote", acceptorUrl);
+            } catch (Exception ex) {
+                throw new IllegalStateException("Invalid embedded acceptor url: " + acceptorUrl, ex);
+            }
+        };
+    }
+}
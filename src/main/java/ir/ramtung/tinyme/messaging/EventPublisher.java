@@ -5,6 +5,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 @Component
@@ -13,13 +16,21 @@ public class EventPublisher {
     private final JmsTemplate jmsTemplate;
     @Value("${responseQueue}")
     private String responseQueue;
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
 
     public EventPublisher(JmsTemplate jmsTemplate) {
         this.jmsTemplate = jmsTemplate;
     }
 
     public void publish(Event event) {
+        for (Consumer<Event> listener : listeners)
+            listener.accept(event);
         log.info("Published : " + event);
-        jmsTemplate.convertAndSend(responseQueue, event);
+        if (RequestOrigin.of(event) != RequestOrigin.SHM)
+            jmsTemplate.convertAndSend(responseQueue, event);
+    }
+
+    public void addListener(Consumer<Event> listener) {
+        listeners.add(listener);
     }
 }
@@ -25,5 +25,19 @@ public class Message {
     public static final String CANNOT_REQUEST_MINIMUM_QUANTITY_EXECUTION_ORDER_IN_AUCTION_STATE = "Cannot request minimum quantity execution order when security is in Auction state";
     public static final String CANNOT_DELETE_STOP_LIMIT_ORDER_IN_AUCTION_STATE = "Cannot delete stop limit order when security is in Auction state";
     public static final String CANNOT_UPDATE_STOP_LIMIT_ORDER_IN_AUCTION_STATE = "Cannot update stop limit order when security is in Auction state";
+    public static final String ORDER_UPDATE_SUPERSEDED = "Order update was superseded by a later request for the same order";
+    public static final String ORDER_CANCELLED_BEFORE_PROCESSING = "Order was cancelled before it was processed";
+    public static final String ENGINE_OVERLOADED = "Engine is overloaded, new orders are temporarily rejected";
+    public static final String BROKER_RATE_LIMIT_EXCEEDED = "Broker request rate limit exceeded";
+    public static final String CANNOT_SPECIFY_TIME_IN_FORCE_FOR_A_STOP_LIMIT_ORDER = "Cannot specify an immediate time in force for a stop limit order";
+    public static final String CANNOT_CHANGE_TIME_IN_FORCE = "Can not change the time in force in a update request";
+    public static final String CANNOT_REQUEST_IMMEDIATE_ORDER_IN_AUCTION_STATE = "Cannot request immediate-or-cancel or fill-or-kill order when security is in Auction state";
+    public static final String EXPIRY_TIME_REQUIRED = "Good-till-time and good-till-date orders need an expiry time";
+    public static final String CANNOT_SPECIFY_EXPIRY_TIME = "Expiry time is only allowed for good-till-time and good-till-date orders";
+    public static final String EXPIRY_TIME_NOT_AFTER_ENTRY_TIME = "Expiry time is not after the entry time";
+    public static final String FILL_OR_KILL_ORDER_NOT_FILLABLE = "Fill-or-kill order cannot be fully filled";
+    public static final String MASS_CANCEL_WITHOUT_FILTER = "Mass cancel must specify a security, broker or shareholder";
+    public static final String MALFORMED_REQUEST = "Malformed request";
+    public static final String UNGROUPED_REQUEST = "Request is not grouped by its security ISIN while requests are consumed concurrently";
 
 }
@@ -1,31 +1,146 @@
 package ir.ramtung.tinyme.messaging;
 
+import ir.ramtung.tinyme.messaging.request.BatchOperation;
+import ir.ramtung.tinyme.messaging.request.BatchRq;
+import ir.ramtung.tinyme.messaging.request.BulkChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
-import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import ir.ramtung.tinyme.domain.service.RequestPipeline;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.logging.Logger;
 
+// With requestConcurrency above 1, producers must set JMSXGroupID to the security ISIN of every
+// security-scoped request so the broker hands all requests of a security to the same consumer.
 @Component
 public class RequestDispatcher {
+    public static final String GROUP_ID_PROPERTY = "JMSXGroupID";
+
     private final Logger log = Logger.getLogger(this.getClass().getName());
-    private final OrderHandler orderHandler;
+    private final RequestPipeline requestPipeline;
+    private final MessageConverter messageConverter;
+    private final boolean concurrent;
+
+    public RequestDispatcher(RequestPipeline requestPipeline, MessageConverter messageConverter) {
+        this(requestPipeline, messageConverter, "1");
+    }
+
+    @Autowired
+    public RequestDispatcher(RequestPipeline requestPipeline, MessageConverter messageConverter,
+                             @Value("${requestConcurrency:1}") String requestConcurrency) {
+        this.requestPipeline = requestPipeline;
+        this.messageConverter = messageConverter;
+        this.concurrent = maxConsumers(requestConcurrency) > 1;
+    }
+
+    private static int maxConsumers(String concurrency) {
+        return Integer.parseInt(concurrency.substring(concurrency.indexOf('-') + 1).trim());
+    }
+
+    @JmsListener(destination = "${requestQueue}", concurrency = "${requestConcurrency:1}")
+    public void receiveRequest(Message message) throws JMSException {
+        Object request = messageConverter.fromMessage(message);
+        if (RequestOrigin.of(requestIdOf(request)) != RequestOrigin.JMS) {
+            log.warning("Dropped request whose id uses the origin bits: " + request);
+            return;
+        }
+        String securityIsin = securityIsinOf(request);
+        if (concurrent && securityIsin != null && !securityIsin.equals(message.getStringProperty(GROUP_ID_PROPERTY))) {
+            rejectUngrouped(request, securityIsin);
+            return;
+        }
+        if (request instanceof EnterOrderRq enterOrderRq)
+            receiveEnterOrderRq(enterOrderRq);
+        else if (request instanceof DeleteOrderRq deleteOrderRq)
+            receiveDeleteOrderRq(deleteOrderRq);
+        else if (request instanceof ChangeMatchingStateRq changeMatchingStateRq)
+            receiveChangeMatchingStateRq(changeMatchingStateRq);
+        else if (request instanceof BulkChangeMatchingStateRq bulkChangeMatchingStateRq)
+            receiveBulkChangeMatchingStateRq(bulkChangeMatchingStateRq);
+        else if (request instanceof BatchRq batchRq)
+            receiveBatchRq(batchRq);
+        else if (request instanceof MassCancelRq massCancelRq)
+            receiveMassCancelRq(massCancelRq);
+        else
+            log.warning("Ignored unknown request: " + request);
+    }
+
+    private static long requestIdOf(Object request) {
+        if (request instanceof EnterOrderRq enterOrderRq)
+            return enterOrderRq.getRequestId();
+        if (request instanceof DeleteOrderRq deleteOrderRq)
+            return deleteOrderRq.getRequestId();
+        if (request instanceof MassCancelRq massCancelRq)
+            return massCancelRq.getRequestId();
+        if (request instanceof BatchRq batchRq)
+            return batchRq.getRequestId();
+        return 0;
+    }
 
-    public RequestDispatcher(OrderHandler orderHandler) {
-        this.orderHandler = orderHandler;
+    private static String securityIsinOf(Object request) {
+        if (request instanceof EnterOrderRq enterOrderRq)
+            return enterOrderRq.getSecurityIsin();
+        if (request instanceof DeleteOrderRq deleteOrderRq)
+            return deleteOrderRq.getSecurityIsin();
+        if (request instanceof ChangeMatchingStateRq changeMatchingStateRq)
+            return changeMatchingStateRq.getSecurityIsin();
+        if (request instanceof MassCancelRq massCancelRq)
+            return massCancelRq.getSecurityIsin();
+        if (request instanceof BatchRq batchRq) {
+            List<String> isins = batchRq.getOperations().stream().map(BatchOperation::getSecurityIsin).distinct().toList();
+            return isins.size() == 1 ? isins.get(0) : null;
+        }
+        return null;
+    }
+
+    private void rejectUngrouped(Object request, String securityIsin) {
+        log.warning("Rejected request not grouped by " + securityIsin + ": " + request);
+        if (request instanceof EnterOrderRq enterOrderRq)
+            requestPipeline.reject(securityIsin, enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), ir.ramtung.tinyme.messaging.Message.UNGROUPED_REQUEST);
+        else if (request instanceof DeleteOrderRq deleteOrderRq)
+            requestPipeline.reject(securityIsin, deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId(), ir.ramtung.tinyme.messaging.Message.UNGROUPED_REQUEST);
+        else if (request instanceof MassCancelRq massCancelRq)
+            requestPipeline.reject(securityIsin, massCancelRq.getRequestId(), 0, ir.ramtung.tinyme.messaging.Message.UNGROUPED_REQUEST);
+        else if (request instanceof BatchRq batchRq)
+            requestPipeline.reject(securityIsin, batchRq.getRequestId(), 0, ir.ramtung.tinyme.messaging.Message.UNGROUPED_REQUEST);
     }
 
-    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.EnterOrderRq'")
     public void receiveEnterOrderRq(EnterOrderRq enterOrderRq) {
         log.info("Received message: " + enterOrderRq);
-        orderHandler.handleEnterOrder(enterOrderRq);
+        requestPipeline.submit(enterOrderRq);
     }
 
-    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.DeleteOrderRq'")
     public void receiveDeleteOrderRq(DeleteOrderRq deleteOrderRq) {
         log.info("Received message: " + deleteOrderRq);
-        orderHandler.handleDeleteOrder(deleteOrderRq);
+        requestPipeline.submit(deleteOrderRq);
+    }
+
+    public void receiveChangeMatchingStateRq(ChangeMatchingStateRq changeMatchingStateRq) {
+        log.info("Received message: " + changeMatchingStateRq);
+        requestPipeline.submit(changeMatchingStateRq);
+    }
+
+    public void receiveBulkChangeMatchingStateRq(BulkChangeMatchingStateRq bulkChangeMatchingStateRq) {
+        log.info("Received message: " + bulkChangeMatchingStateRq);
+        requestPipeline.submit(bulkChangeMatchingStateRq);
+    }
+
+    public void receiveBatchRq(BatchRq batchRq) {
+        log.info("Received message: " + batchRq);
+        requestPipeline.submit(batchRq);
+    }
+
+    public void receiveMassCancelRq(MassCancelRq massCancelRq) {
+        log.info("Received message: " + massCancelRq);
+        requestPipeline.submit(massCancelRq);
     }
 }
@@ -0,0 +1,33 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.shm.FrameCodec;
+
+// The top two bits of a request id name the channel it came in on; clients own the lower 62 bits.
+public enum RequestOrigin {
+    JMS, SHM;
+
+    private static final int SHIFT = 62;
+    private static final long TAG_MASK = 3L << SHIFT;
+
+    public long tag(long requestId) {
+        return untag(requestId) | ((long) ordinal() << SHIFT);
+    }
+
+    public static long untag(long requestId) {
+        return requestId & ~TAG_MASK;
+    }
+
+    public static boolean isTagged(long requestId) {
+        return (requestId & TAG_MASK) != 0;
+    }
+
+    public static RequestOrigin of(long requestId) {
+        return (requestId & TAG_MASK) == SHM.tag(0) ? SHM : JMS;
+    }
+
+    public static RequestOrigin of(Event event) {
+        Long requestId = FrameCodec.requestIdOf(event);
+        return requestId == null ? null : of(requestId);
+    }
+}
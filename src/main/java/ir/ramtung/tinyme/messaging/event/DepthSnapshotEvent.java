@@ -0,0 +1,20 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class DepthSnapshotEvent extends Event {
+    private String securityIsin;
+    private long sequence;
+    private List<PriceLevel> bids;
+    private List<PriceLevel> asks;
+}
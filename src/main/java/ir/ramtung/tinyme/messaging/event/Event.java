@@ -1,9 +1,12 @@
 package ir.ramtung.tinyme.messaging.event;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
@@ -11,14 +14,23 @@ import java.time.LocalDateTime;
 
 @EqualsAndHashCode
 public abstract class Event {
-    @Getter
-    @JsonSerialize(using = LocalDateTimeSerializer.class)
-    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
-    private final LocalDateTime time;
+    @Getter(onMethod_ = @JsonIgnore)
+    private long timeNanos;
     public Event() {
-        time = LocalDateTime.now();
+        timeNanos = EngineClock.current().nanos();
     }
     public Event(LocalDateTime time) {
-        this.time = time;
+        setTime(time);
+    }
+
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    public LocalDateTime getTime() {
+        return EngineClock.toLocalDateTime(timeNanos);
+    }
+
+    @JsonProperty("time")
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private void setTime(LocalDateTime time) {
+        timeNanos = EngineClock.toEpochNanos(time);
     }
 }
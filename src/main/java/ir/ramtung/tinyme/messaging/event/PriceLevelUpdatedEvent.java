@@ -0,0 +1,22 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.domain.entity.MarketDepth;
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceLevelUpdatedEvent extends Event {
+    private String securityIsin;
+    private long sequence;
+    private Side side;
+    private MarketDepth.Action action;
+    private int price;
+    private int quantity;
+    private int orderCount;
+}
@@ -0,0 +1,24 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class TradeStatisticsEvent extends Event {
+    private String securityIsin;
+    private int open;
+    private int high;
+    private int low;
+    private int close;
+    private long volume;
+    private long turnover;
+
+    public double vwap() {
+        return volume == 0 ? 0 : (double) turnover / volume;
+    }
+}
@@ -0,0 +1,134 @@
+package ir.ramtung.tinyme.messaging.marketdata;
+
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+public class ConflatingPublisher {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ConflatingPublisher(EventPublisher eventPublisher) {
+        eventPublisher.addListener(this::onEvent);
+    }
+
+    public static Object conflationKey(Event event) {
+        if (event instanceof BestBidAndOfferEvent bbo)
+            return List.of("BBO", bbo.getSecurityIsin());
+        if (event instanceof PriceLevelUpdatedEvent level)
+            return List.of("LEVEL", level.getSecurityIsin(), level.getSide(), level.getPrice());
+        if (event instanceof DepthSnapshotEvent snapshot)
+            return List.of("DEPTH", snapshot.getSecurityIsin());
+        if (event instanceof OpeningPriceEvent openingPrice)
+            return List.of("OPENING_PRICE", openingPrice.getSecurityIsin());
+        if (event instanceof SecurityStateChangedEvent stateChanged)
+            return List.of("STATE", stateChanged.getSecurityIsin());
+        if (event instanceof TradeStatisticsEvent statistics)
+            return List.of("STATISTICS", statistics.getSecurityIsin());
+        return null;
+    }
+
+    public void onEvent(Event event) {
+        Object key = conflationKey(event);
+        if (key == null)
+            return;
+        for (Subscription subscription : subscriptions)
+            subscription.offer(key, event);
+    }
+
+    public Subscription subscribe(String name, Consumer<Event> consumer) {
+        Subscription subscription = new Subscription(name, consumer);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(Subscription::close);
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final Consumer<Event> consumer;
+        private final Thread thread;
+        private LinkedHashMap<Object, Event> pending = new LinkedHashMap<>();
+        private long delivered;
+        private long conflated;
+        private boolean closed;
+
+        private Subscription(String name, Consumer<Event> consumer) {
+            this.consumer = consumer;
+            thread = new Thread(this::deliver, "market-data-" + name);
+            thread.setDaemon(true);
+        }
+
+        private synchronized void offer(Object key, Event event) {
+            if (closed)
+                return;
+            boolean superseded = pending.remove(key) != null;
+            pending.put(key, event);
+            if (superseded)
+                conflated++;
+            else if (pending.size() == 1)
+                notifyAll();
+        }
+
+        private synchronized List<Event> take() throws InterruptedException {
+            while (pending.isEmpty() && !closed)
+                wait();
+            List<Event> events = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            return events;
+        }
+
+        private void deliver() {
+            try {
+                while (true) {
+                    List<Event> events = take();
+                    if (events.isEmpty())
+                        return;
+                    for (Event event : events) {
+                        try {
+                            consumer.accept(event);
+                        } catch (RuntimeException ex) {
+                            log.log(Level.WARNING, "Market data subscriber " + thread.getName() + " failed on " + event, ex);
+                        }
+                    }
+                    synchronized (this) {
+                        delivered += events.size();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public synchronized long getDelivered() {
+            return delivered;
+        }
+
+        public synchronized long getConflated() {
+            return conflated;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+                notifyAll();
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
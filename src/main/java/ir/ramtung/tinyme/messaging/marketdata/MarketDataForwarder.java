@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.messaging.marketdata;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "marketDataQueue")
+public class MarketDataForwarder {
+    private final ConflatingPublisher.Subscription subscription;
+
+    public MarketDataForwarder(ConflatingPublisher conflatingPublisher, JmsTemplate jmsTemplate,
+                               @Value("${marketDataQueue}") String marketDataQueue) {
+        subscription = conflatingPublisher.subscribe("jms", event -> jmsTemplate.convertAndSend(marketDataQueue, event));
+    }
+
+    public ConflatingPublisher.Subscription getSubscription() {
+        return subscription;
+    }
+}
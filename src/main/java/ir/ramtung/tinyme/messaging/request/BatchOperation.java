@@ -0,0 +1,27 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchOperation {
+    private EnterOrderRq enterOrderRq;
+    private DeleteOrderRq deleteOrderRq;
+
+    public static BatchOperation enter(EnterOrderRq enterOrderRq) {
+        return new BatchOperation(enterOrderRq, null);
+    }
+
+    public static BatchOperation delete(DeleteOrderRq deleteOrderRq) {
+        return new BatchOperation(null, deleteOrderRq);
+    }
+
+    @JsonIgnore
+    public String getSecurityIsin() {
+        return enterOrderRq != null ? enterOrderRq.getSecurityIsin() : deleteOrderRq.getSecurityIsin();
+    }
+}
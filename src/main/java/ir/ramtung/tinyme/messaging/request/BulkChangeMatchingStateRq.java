@@ -0,0 +1,23 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkChangeMatchingStateRq {
+    private List<String> securityIsins = new ArrayList<>();
+    private MatchingState targetState;
+
+    public BulkChangeMatchingStateRq(List<String> securityIsins, MatchingState targetState) {
+        this.securityIsins = securityIsins;
+        this.targetState = targetState;
+    }
+
+    public static BulkChangeMatchingStateRq createMarketWideRq(MatchingState targetState) {
+        return new BulkChangeMatchingStateRq(new ArrayList<>(), targetState);
+    }
+}
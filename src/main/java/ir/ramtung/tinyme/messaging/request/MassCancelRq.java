@@ -0,0 +1,17 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MassCancelRq {
+    private long requestId;
+    private String securityIsin;
+    private Side side;
+    private Long brokerId;
+    private Long shareholderId;
+}
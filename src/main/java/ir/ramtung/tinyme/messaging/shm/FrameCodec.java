@@ -0,0 +1,462 @@
+package ir.ramtung.tinyme.messaging.shm;
+
+import ir.ramtung.tinyme.domain.entity.MarketDepth;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.entity.TimeInForce;
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.RequestOrigin;
+import ir.ramtung.tinyme.messaging.TradeDTO;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+public final class FrameCodec {
+    public static final int FRAME_SIZE = 128;
+
+    public static final byte NEW_ORDER = 1;
+    public static final byte UPDATE_ORDER = 2;
+    public static final byte DELETE_ORDER = 3;
+    public static final byte ORDER_ACCEPTED = 16;
+    public static final byte ORDER_UPDATED = 17;
+    public static final byte ORDER_DELETED = 18;
+    public static final byte ORDER_ACTIVATED = 19;
+    public static final byte ORDER_REJECTED = 20;
+    public static final byte ORDER_EXECUTED = 21;
+    public static final byte TRADE = 22;
+    public static final byte OPENING_PRICE = 23;
+    public static final byte SECURITY_STATE_CHANGED = 24;
+    public static final byte BATCH_RESULT = 25;
+    public static final byte PRICE_LEVEL_UPDATED = 26;
+    public static final byte BEST_BID_AND_OFFER = 27;
+    public static final byte DEPTH_SNAPSHOT = 28;
+    public static final byte ORDER_EXPIRED = 29;
+    public static final byte TRADE_STATISTICS = 30;
+
+    private static final byte HAS_BID = 1;
+    private static final byte HAS_ASK = 2;
+
+    private static final int TYPE = 0;
+    private static final int FLAG = 1;
+    private static final int PART = 2;
+    private static final int PARTS = 4;
+    private static final int REQUEST_ID = 8;
+    private static final int ORDER_ID = 16;
+    private static final int SEQUENCE = 16;
+    private static final int TIME = 24;
+    private static final int ISIN = 32;
+    private static final int ISIN_LENGTH = 12;
+    private static final int QUANTITY = 44;
+    private static final int PRICE = 48;
+    private static final int PEAK_SIZE = 52;
+    private static final int ORDER_COUNT = 52;
+    private static final int MINIMUM_EXECUTION_QUANTITY = 56;
+    private static final int ACTION = 56;
+    private static final int STOP_PRICE = 60;
+    private static final int BROKER_ID = 64;
+    private static final int SHAREHOLDER_ID = 72;
+    private static final int BUY_ORDER_ID = 64;
+    private static final int SELL_ORDER_ID = 72;
+    private static final int ASK_QUANTITY = 64;
+    private static final int ASK_PRICE = 68;
+    private static final int ASK_ORDER_COUNT = 72;
+    private static final int OPEN = 44;
+    private static final int HIGH = 48;
+    private static final int LOW = 52;
+    private static final int CLOSE = 56;
+    private static final int VOLUME = 64;
+    private static final int TURNOVER = 72;
+    private static final int EXPIRY_TIME = 80;
+    private static final int REASONS = 80;
+    private static final int MAX_REASONS = (FRAME_SIZE - REASONS) / 2;
+
+    // Wire codes are positions in this list: append new messages, never reorder or remove.
+    private static final List<String> messages = List.of(
+            Message.INVALID_ORDER_ID,
+            Message.ORDER_QUANTITY_NOT_POSITIVE,
+            Message.ORDER_PRICE_NOT_POSITIVE,
+            Message.UNKNOWN_SECURITY_ISIN,
+            Message.ORDER_ID_NOT_FOUND,
+            Message.INVALID_PEAK_SIZE,
+            Message.CANNOT_SPECIFY_PEAK_SIZE_FOR_A_NON_ICEBERG_ORDER,
+            Message.UNKNOWN_BROKER_ID,
+            Message.UNKNOWN_SHAREHOLDER_ID,
+            Message.BUYER_HAS_NOT_ENOUGH_CREDIT,
+            Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE,
+            Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE,
+            Message.SELLER_HAS_NOT_ENOUGH_POSITIONS,
+            Message.CANNOT_CHANGE_MINIMUM_EXECUTION_QUANTITY,
+            Message.MINIMUM_EXECUTION_QUANTITY_NOT_POSITIVE,
+            Message.INVALID_MINIMUM_EXECUTION_QUANTITY,
+            Message.BROKER_HAS_NOT_ENOUGH_INITIAL_TRANSACTION,
+            Message.ORDER_STOP_PRICE_NEGATIVE,
+            Message.CANNOT_SPECIFY_MINIMUM_EXECUTION_QUANTITY_FOR_A_STOP_LIMIT_ORDER,
+            Message.ORDER_CANNOT_BE_BOTH_A_STOP_LIMIT_AND_AN_ICEBERG,
+            Message.CANNOT_REQUEST_STOP_LIMIT_ORDER_IN_AUCTION_STATE,
+            Message.CANNOT_REQUEST_MINIMUM_QUANTITY_EXECUTION_ORDER_IN_AUCTION_STATE,
+            Message.CANNOT_DELETE_STOP_LIMIT_ORDER_IN_AUCTION_STATE,
+            Message.CANNOT_UPDATE_STOP_LIMIT_ORDER_IN_AUCTION_STATE,
+            Message.ORDER_UPDATE_SUPERSEDED,
+            Message.ORDER_CANCELLED_BEFORE_PROCESSING,
+            Message.ENGINE_OVERLOADED,
+            Message.BROKER_RATE_LIMIT_EXCEEDED,
+            Message.CANNOT_SPECIFY_TIME_IN_FORCE_FOR_A_STOP_LIMIT_ORDER,
+            Message.CANNOT_CHANGE_TIME_IN_FORCE,
+            Message.CANNOT_REQUEST_IMMEDIATE_ORDER_IN_AUCTION_STATE,
+            Message.EXPIRY_TIME_REQUIRED,
+            Message.CANNOT_SPECIFY_EXPIRY_TIME,
+            Message.EXPIRY_TIME_NOT_AFTER_ENTRY_TIME,
+            Message.FILL_OR_KILL_ORDER_NOT_FILLABLE,
+            Message.MASS_CANCEL_WITHOUT_FILTER,
+            Message.MALFORMED_REQUEST,
+            Message.UNGROUPED_REQUEST
+    );
+    private static final HashMap<String, Short> messageCodes = new HashMap<>();
+
+    static {
+        for (String message : messages)
+            messageCodes.put(message, (short) messageCodes.size());
+    }
+
+    private FrameCodec() {
+    }
+
+    public static byte type(ByteBuffer frame) {
+        return frame.get(TYPE);
+    }
+
+    public static long requestId(ByteBuffer frame) {
+        return frame.getLong(REQUEST_ID);
+    }
+
+    public static long orderId(ByteBuffer frame) {
+        return frame.getLong(ORDER_ID);
+    }
+
+    public static short messageCode(String message) {
+        return messageCodes.getOrDefault(message, (short) -1);
+    }
+
+    public static Long requestIdOf(Event event) {
+        if (event instanceof OrderAcceptedEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderUpdatedEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderDeletedEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderActivatedEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderRejectedEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderExecutedEvent e)
+            return e.getRequestId();
+        if (event instanceof BatchResultEvent e)
+            return e.getRequestId();
+        if (event instanceof OrderExpiredEvent e)
+            return e.getRequestId();
+        return null;
+    }
+
+    public static void encode(EnterOrderRq enterOrderRq, ByteBuffer frame) {
+        clear(frame);
+        frame.put(TYPE, enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER ? NEW_ORDER : UPDATE_ORDER);
+        frame.put(FLAG, side(enterOrderRq.getSide()));
+        frame.put(PART, (byte) enterOrderRq.getTimeInForce().ordinal());
+        frame.putLong(REQUEST_ID, enterOrderRq.getRequestId());
+        frame.putLong(ORDER_ID, enterOrderRq.getOrderId());
+        frame.putLong(TIME, enterOrderRq.getEntryTime() == null ? 0 : EngineClock.toEpochNanos(enterOrderRq.getEntryTime()));
+        putIsin(frame, enterOrderRq.getSecurityIsin());
+        frame.putInt(QUANTITY, enterOrderRq.getQuantity());
+        frame.putInt(PRICE, enterOrderRq.getPrice());
+        frame.putInt(PEAK_SIZE, enterOrderRq.getPeakSize());
+        frame.putInt(MINIMUM_EXECUTION_QUANTITY, enterOrderRq.getMinimumExecutionQuantity());
+        frame.putInt(STOP_PRICE, enterOrderRq.getStopPrice());
+        frame.putLong(BROKER_ID, enterOrderRq.getBrokerId());
+        frame.putLong(SHAREHOLDER_ID, enterOrderRq.getShareholderId());
+        frame.putLong(EXPIRY_TIME, enterOrderRq.getExpiryTime() == null ? 0 : EngineClock.toEpochNanos(enterOrderRq.getExpiryTime()));
+    }
+
+    public static void encode(DeleteOrderRq deleteOrderRq, ByteBuffer frame) {
+        clear(frame);
+        frame.put(TYPE, DELETE_ORDER);
+        frame.put(FLAG, side(deleteOrderRq.getSide()));
+        frame.putLong(REQUEST_ID, deleteOrderRq.getRequestId());
+        frame.putLong(ORDER_ID, deleteOrderRq.getOrderId());
+        frame.putLong(TIME, deleteOrderRq.getEntryTime() == null ? 0 : EngineClock.toEpochNanos(deleteOrderRq.getEntryTime()));
+        putIsin(frame, deleteOrderRq.getSecurityIsin());
+    }
+
+    public static EnterOrderRq decodeEnterOrderRq(ByteBuffer frame) {
+        long time = frame.getLong(TIME);
+        LocalDateTime entryTime = time == 0 ? null : EngineClock.toLocalDateTime(time);
+        long expiryTime = frame.getLong(EXPIRY_TIME);
+        if (frame.get(TYPE) == NEW_ORDER)
+            return EnterOrderRq.createNewOrderRq(frame.getLong(REQUEST_ID), getIsin(frame), frame.getLong(ORDER_ID),
+                    entryTime, side(frame.get(FLAG)), frame.getInt(QUANTITY), frame.getInt(PRICE),
+                    frame.getLong(BROKER_ID), frame.getLong(SHAREHOLDER_ID),
+                    frame.getInt(PEAK_SIZE), frame.getInt(MINIMUM_EXECUTION_QUANTITY), frame.getInt(STOP_PRICE),
+                    timeInForce(frame.get(PART)), expiryTime == 0 ? null : EngineClock.toLocalDateTime(expiryTime));
+        return EnterOrderRq.createUpdateOrderRq(frame.getLong(REQUEST_ID), getIsin(frame), frame.getLong(ORDER_ID),
+                entryTime, side(frame.get(FLAG)), frame.getInt(QUANTITY), frame.getInt(PRICE),
+                frame.getLong(BROKER_ID), frame.getLong(SHAREHOLDER_ID),
+                frame.getInt(PEAK_SIZE), frame.getInt(MINIMUM_EXECUTION_QUANTITY), frame.getInt(STOP_PRICE));
+    }
+
+    public static DeleteOrderRq decodeDeleteOrderRq(ByteBuffer frame) {
+        long time = frame.getLong(TIME);
+        return new DeleteOrderRq(frame.getLong(REQUEST_ID), getIsin(frame), side(frame.get(FLAG)), frame.getLong(ORDER_ID),
+                time == 0 ? null : EngineClock.toLocalDateTime(time));
+    }
+
+    public static boolean encode(Event event, ByteBuffer frame, Consumer<ByteBuffer> sink) {
+        if (event instanceof OrderAcceptedEvent e)
+            sink.accept(orderFrame(frame, ORDER_ACCEPTED, e.getTimeNanos(), e.getRequestId(), e.getOrderId()));
+        else if (event instanceof OrderUpdatedEvent e)
+            sink.accept(orderFrame(frame, ORDER_UPDATED, e.getTimeNanos(), e.getRequestId(), e.getOrderId()));
+        else if (event instanceof OrderDeletedEvent e)
+            sink.accept(orderFrame(frame, ORDER_DELETED, e.getTimeNanos(), e.getRequestId(), e.getOrderId()));
+        else if (event instanceof OrderActivatedEvent e)
+            sink.accept(orderFrame(frame, ORDER_ACTIVATED, e.getTimeNanos(), e.getRequestId(), e.getOrderId()));
+        else if (event instanceof OrderRejectedEvent e) {
+            orderFrame(frame, ORDER_REJECTED, e.getTimeNanos(), e.getRequestId(), e.getOrderId());
+            int count = Math.min(e.getErrors().size(), MAX_REASONS);
+            frame.putShort(PARTS, (short) count);
+            for (int i = 0; i < count; i++)
+                frame.putShort(REASONS + 2 * i, messageCode(e.getErrors().get(i)));
+            sink.accept(frame);
+        } else if (event instanceof OrderExecutedEvent e) {
+            List<TradeDTO> trades = e.getTrades();
+            for (int i = 0; i < trades.size(); i++) {
+                orderFrame(frame, ORDER_EXECUTED, e.getTimeNanos(), e.getRequestId(), e.getOrderId());
+                frame.putShort(PART, (short) i);
+                frame.putShort(PARTS, (short) trades.size());
+                putTrade(frame, trades.get(i).securityIsin(), trades.get(i).price(), trades.get(i).quantity(),
+                        trades.get(i).buyOrderId(), trades.get(i).sellOrderId());
+                sink.accept(frame);
+            }
+        } else if (event instanceof TradeEvent e) {
+            clear(frame);
+            frame.put(TYPE, TRADE);
+            frame.putLong(TIME, e.getTimeNanos());
+            putTrade(frame, e.getSecurityIsin(), e.getPrice(), e.getQuantity(), e.getBuyId(), e.getSellId());
+            sink.accept(frame);
+        } else if (event instanceof OpeningPriceEvent e) {
+            clear(frame);
+            frame.put(TYPE, OPENING_PRICE);
+            frame.putLong(TIME, e.getTimeNanos());
+            putIsin(frame, e.getSecurityIsin());
+            frame.putInt(PRICE, e.getOpeningPrice());
+            frame.putInt(QUANTITY, e.getTradableQuantity());
+            sink.accept(frame);
+        } else if (event instanceof SecurityStateChangedEvent e) {
+            clear(frame);
+            frame.put(TYPE, SECURITY_STATE_CHANGED);
+            frame.put(FLAG, (byte) e.getState().ordinal());
+            frame.putLong(TIME, e.getTimeNanos());
+            putIsin(frame, e.getSecurityIsin());
+            sink.accept(frame);
+        } else if (event instanceof BatchResultEvent e) {
+            orderFrame(frame, BATCH_RESULT, e.getTimeNanos(), e.getRequestId(), 0);
+            frame.putShort(PARTS, (short) e.getEvents().size());
+            sink.accept(frame);
+            for (Event operationEvent : e.getEvents())
+                encode(operationEvent, frame, sink);
+        } else if (event instanceof PriceLevelUpdatedEvent e) {
+            marketDataFrame(frame, PRICE_LEVEL_UPDATED, e.getTimeNanos(), e.getSecurityIsin(), e.getSequence());
+            frame.put(FLAG, side(e.getSide()));
+            frame.put(ACTION, (byte) e.getAction().ordinal());
+            putLevel(frame, new PriceLevel(e.getPrice(), e.getQuantity(), e.getOrderCount()));
+            sink.accept(frame);
+        } else if (event instanceof BestBidAndOfferEvent e) {
+            marketDataFrame(frame, BEST_BID_AND_OFFER, e.getTimeNanos(), e.getSecurityIsin(), 0);
+            frame.put(FLAG, (byte) ((e.getBid() != null ? HAS_BID : 0) | (e.getAsk() != null ? HAS_ASK : 0)));
+            if (e.getBid() != null)
+                putLevel(frame, e.getBid());
+            if (e.getAsk() != null) {
+                frame.putInt(ASK_QUANTITY, e.getAsk().quantity());
+                frame.putInt(ASK_PRICE, e.getAsk().price());
+                frame.putInt(ASK_ORDER_COUNT, e.getAsk().orderCount());
+            }
+            sink.accept(frame);
+        } else if (event instanceof DepthSnapshotEvent e) {
+            int parts = e.getBids().size() + e.getAsks().size();
+            for (int i = 0; i < Math.max(parts, 1); i++) {
+                marketDataFrame(frame, DEPTH_SNAPSHOT, e.getTimeNanos(), e.getSecurityIsin(), e.getSequence());
+                frame.putShort(PART, (short) i);
+                frame.putShort(PARTS, (short) parts);
+                if (i < parts) {
+                    boolean bid = i < e.getBids().size();
+                    frame.put(FLAG, side(bid ? Side.BUY : Side.SELL));
+                    putLevel(frame, bid ? e.getBids().get(i) : e.getAsks().get(i - e.getBids().size()));
+                }
+                sink.accept(frame);
+            }
+        } else if (event instanceof OrderExpiredEvent e) {
+            marketDataFrame(frame, ORDER_EXPIRED, e.getTimeNanos(), e.getSecurityIsin(), 0);
+            frame.putLong(REQUEST_ID, RequestOrigin.untag(e.getRequestId()));
+            frame.putLong(ORDER_ID, e.getOrderId());
+            sink.accept(frame);
+        } else if (event instanceof TradeStatisticsEvent e) {
+            marketDataFrame(frame, TRADE_STATISTICS, e.getTimeNanos(), e.getSecurityIsin(), 0);
+            frame.putInt(OPEN, e.getOpen());
+            frame.putInt(HIGH, e.getHigh());
+            frame.putInt(LOW, e.getLow());
+            frame.putInt(CLOSE, e.getClose());
+            frame.putLong(VOLUME, e.getVolume());
+            frame.putLong(TURNOVER, e.getTurnover());
+            sink.accept(frame);
+        } else
+            return false;
+        return true;
+    }
+
+    public static Event decodeEvent(ByteBuffer frame) {
+        long requestId = frame.getLong(REQUEST_ID);
+        long orderId = frame.getLong(ORDER_ID);
+        return switch (frame.get(TYPE)) {
+            case ORDER_ACCEPTED -> new OrderAcceptedEvent(requestId, orderId);
+            case ORDER_UPDATED -> new OrderUpdatedEvent(requestId, orderId);
+            case ORDER_DELETED -> new OrderDeletedEvent(requestId, orderId);
+            case ORDER_ACTIVATED -> new OrderActivatedEvent(requestId, orderId);
+            case ORDER_REJECTED -> {
+                List<String> errors = new ArrayList<>();
+                for (int i = 0; i < Math.min(frame.getShort(PARTS), MAX_REASONS); i++) {
+                    short code = frame.getShort(REASONS + 2 * i);
+                    errors.add(code >= 0 && code < messages.size() ? messages.get(code) : null);
+                }
+                yield new OrderRejectedEvent(requestId, orderId, errors);
+            }
+            case ORDER_EXECUTED -> new OrderExecutedEvent(requestId, orderId, new ArrayList<>(List.of(decodeTrade(frame))));
+            case TRADE -> new TradeEvent(getIsin(frame), frame.getInt(PRICE), frame.getInt(QUANTITY), frame.getLong(BUY_ORDER_ID), frame.getLong(SELL_ORDER_ID));
+            case OPENING_PRICE -> new OpeningPriceEvent(getIsin(frame), frame.getInt(PRICE), frame.getInt(QUANTITY));
+            case SECURITY_STATE_CHANGED -> new SecurityStateChangedEvent(getIsin(frame), matchingState(frame.get(FLAG)));
+            case BATCH_RESULT -> new BatchResultEvent(requestId, new ArrayList<>());
+            case PRICE_LEVEL_UPDATED -> {
+                PriceLevel level = getLevel(frame);
+                yield new PriceLevelUpdatedEvent(getIsin(frame), frame.getLong(SEQUENCE), side(frame.get(FLAG)), action(frame.get(ACTION)),
+                        level.price(), level.quantity(), level.orderCount());
+            }
+            case BEST_BID_AND_OFFER -> new BestBidAndOfferEvent(getIsin(frame),
+                    (frame.get(FLAG) & HAS_BID) != 0 ? getLevel(frame) : null,
+                    (frame.get(FLAG) & HAS_ASK) != 0 ? new PriceLevel(frame.getInt(ASK_PRICE), frame.getInt(ASK_QUANTITY), frame.getInt(ASK_ORDER_COUNT)) : null);
+            case DEPTH_SNAPSHOT -> {
+                List<PriceLevel> bids = new ArrayList<>(), asks = new ArrayList<>();
+                if (frame.getShort(PARTS) > 0)
+                    (side(frame.get(FLAG)) == Side.BUY ? bids : asks).add(getLevel(frame));
+                yield new DepthSnapshotEvent(getIsin(frame), frame.getLong(SEQUENCE), bids, asks);
+            }
+            case ORDER_EXPIRED -> new OrderExpiredEvent(getIsin(frame), requestId, orderId);
+            case TRADE_STATISTICS -> new TradeStatisticsEvent(getIsin(frame), frame.getInt(OPEN), frame.getInt(HIGH), frame.getInt(LOW),
+                    frame.getInt(CLOSE), frame.getLong(VOLUME), frame.getLong(TURNOVER));
+            default -> null;
+        };
+    }
+
+    public static TradeDTO decodeTrade(ByteBuffer frame) {
+        return new TradeDTO(getIsin(frame), frame.getInt(PRICE), frame.getInt(QUANTITY), frame.getLong(BUY_ORDER_ID), frame.getLong(SELL_ORDER_ID));
+    }
+
+    public static int part(ByteBuffer frame) {
+        return frame.getShort(PART);
+    }
+
+    public static int parts(ByteBuffer frame) {
+        return frame.getShort(PARTS);
+    }
+
+    private static ByteBuffer orderFrame(ByteBuffer frame, byte type, long time, long requestId, long orderId) {
+        clear(frame);
+        frame.put(TYPE, type);
+        frame.putLong(TIME, time);
+        frame.putLong(REQUEST_ID, RequestOrigin.untag(requestId));
+        frame.putLong(ORDER_ID, orderId);
+        return frame;
+    }
+
+    private static void marketDataFrame(ByteBuffer frame, byte type, long time, String isin, long sequence) {
+        clear(frame);
+        frame.put(TYPE, type);
+        frame.putLong(TIME, time);
+        frame.putLong(SEQUENCE, sequence);
+        putIsin(frame, isin);
+    }
+
+    private static void putLevel(ByteBuffer frame, PriceLevel level) {
+        frame.putInt(QUANTITY, level.quantity());
+        frame.putInt(PRICE, level.price());
+        frame.putInt(ORDER_COUNT, level.orderCount());
+    }
+
+    private static PriceLevel getLevel(ByteBuffer frame) {
+        return new PriceLevel(frame.getInt(PRICE), frame.getInt(QUANTITY), frame.getInt(ORDER_COUNT));
+    }
+
+    private static void putTrade(ByteBuffer frame, String isin, int price, int quantity, long buyOrderId, long sellOrderId) {
+        putIsin(frame, isin);
+        frame.putInt(PRICE, price);
+        frame.putInt(QUANTITY, quantity);
+        frame.putLong(BUY_ORDER_ID, buyOrderId);
+        frame.putLong(SELL_ORDER_ID, sellOrderId);
+    }
+
+    private static void clear(ByteBuffer frame) {
+        for (int i = 0; i < FRAME_SIZE; i += 8)
+            frame.putLong(i, 0);
+    }
+
+    private static void putIsin(ByteBuffer frame, String isin) {
+        if (isin == null)
+            return;
+        byte[] bytes = isin.getBytes(StandardCharsets.US_ASCII);
+        frame.put(ISIN, bytes, 0, Math.min(bytes.length, ISIN_LENGTH));
+    }
+
+    private static String getIsin(ByteBuffer frame) {
+        byte[] bytes = new byte[ISIN_LENGTH];
+        frame.get(ISIN, bytes);
+        int length = 0;
+        while (length < ISIN_LENGTH && bytes[length] != 0)
+            length++;
+        return length == 0 ? null : new String(Arrays.copyOf(bytes, length), StandardCharsets.US_ASCII);
+    }
+
+    private static byte side(Side side) {
+        return (byte) (side == Side.BUY ? 1 : 0);
+    }
+
+    private static Side side(byte side) {
+        if (side != 0 && side != 1)
+            throw new IllegalArgumentException("Invalid side " + side);
+        return side == 1 ? Side.BUY : Side.SELL;
+    }
+
+    private static TimeInForce timeInForce(byte timeInForce) {
+        if (timeInForce < 0 || timeInForce >= TimeInForce.values().length)
+            throw new IllegalArgumentException("Invalid time in force " + timeInForce);
+        return TimeInForce.values()[timeInForce];
+    }
+
+    private static MarketDepth.Action action(byte action) {
+        if (action < 0 || action >= MarketDepth.Action.values().length)
+            throw new IllegalArgumentException("Invalid depth action " + action);
+        return MarketDepth.Action.values()[action];
+    }
+
+    private static MatchingState matchingState(byte state) {
+        if (state < 0 || state >= MatchingState.values().length)
+            throw new IllegalArgumentException("Invalid matching state " + state);
+        return MatchingState.values()[state];
+    }
+}
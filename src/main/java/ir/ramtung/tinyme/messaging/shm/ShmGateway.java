@@ -0,0 +1,129 @@
+package ir.ramtung.tinyme.messaging.shm;
+
+import ir.ramtung.tinyme.domain.service.RequestPipeline;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.RequestOrigin;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+@ConditionalOnProperty(name = "shmGateway.enabled", havingValue = "true")
+public class ShmGateway {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final RequestPipeline requestPipeline;
+    private final EventPublisher eventPublisher;
+    private final Path requestPath;
+    private final Path responsePath;
+    private final int capacity;
+    private final AtomicLong droppedResponses = new AtomicLong();
+    private final AtomicLong unencodedResponses = new AtomicLong();
+    private final ByteBuffer requestFrame = ByteBuffer.allocateDirect(FrameCodec.FRAME_SIZE).order(ByteOrder.nativeOrder());
+    private final ByteBuffer responseFrame = ByteBuffer.allocateDirect(FrameCodec.FRAME_SIZE).order(ByteOrder.nativeOrder());
+    private ShmRingBuffer requests;
+    private ShmRingBuffer responses;
+    private Thread poller;
+    private volatile boolean running;
+
+    public ShmGateway(RequestPipeline requestPipeline, EventPublisher eventPublisher,
+                      @Value("${shmGateway.requestPath:/dev/shm/tinyme-rq}") String requestPath,
+                      @Value("${shmGateway.responsePath:/dev/shm/tinyme-rs}") String responsePath,
+                      @Value("${shmGateway.capacity:65536}") int capacity) {
+        this.requestPipeline = requestPipeline;
+        this.eventPublisher = eventPublisher;
+        this.requestPath = Path.of(requestPath);
+        this.responsePath = Path.of(responsePath);
+        this.capacity = capacity;
+    }
+
+    public long getDroppedResponses() {
+        return droppedResponses.get();
+    }
+
+    public long getUnencodedResponses() {
+        return unencodedResponses.get();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        requests = ShmRingBuffer.open(requestPath, capacity, FrameCodec.FRAME_SIZE);
+        responses = ShmRingBuffer.open(responsePath, capacity, FrameCodec.FRAME_SIZE);
+        eventPublisher.addListener(this::publish);
+        running = true;
+        poller = new Thread(this::poll, "shm-gateway");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    private void poll() {
+        while (running) {
+            if (!requests.poll(requestFrame)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long requestId = FrameCodec.requestId(requestFrame);
+            try {
+                if (RequestOrigin.isTagged(requestId))
+                    throw new IllegalArgumentException("Request id " + requestId + " uses the origin bits");
+                switch (FrameCodec.type(requestFrame)) {
+                    case FrameCodec.NEW_ORDER, FrameCodec.UPDATE_ORDER -> requestPipeline.submit(tagged(FrameCodec.decodeEnterOrderRq(requestFrame)));
+                    case FrameCodec.DELETE_ORDER -> requestPipeline.submit(tagged(FrameCodec.decodeDeleteOrderRq(requestFrame)));
+                    default -> throw new IllegalArgumentException("Unknown frame type " + FrameCodec.type(requestFrame));
+                }
+            } catch (RuntimeException ex) {
+                log.log(Level.WARNING, "Rejected malformed request " + requestId, ex);
+                eventPublisher.publish(new OrderRejectedEvent(RequestOrigin.SHM.tag(requestId), FrameCodec.orderId(requestFrame), List.of(Message.MALFORMED_REQUEST)));
+            }
+        }
+    }
+
+    private static EnterOrderRq tagged(EnterOrderRq enterOrderRq) {
+        enterOrderRq.setRequestId(RequestOrigin.SHM.tag(enterOrderRq.getRequestId()));
+        return enterOrderRq;
+    }
+
+    private static DeleteOrderRq tagged(DeleteOrderRq deleteOrderRq) {
+        deleteOrderRq.setRequestId(RequestOrigin.SHM.tag(deleteOrderRq.getRequestId()));
+        return deleteOrderRq;
+    }
+
+    private synchronized void publish(Event event) {
+        if (!running || RequestOrigin.of(event) == RequestOrigin.JMS)
+            return;
+        boolean encoded = FrameCodec.encode(event, responseFrame, frame -> {
+            if (!responses.offer(frame) && droppedResponses.incrementAndGet() % 1024 == 1)
+                log.warning("Response ring is full, dropped " + droppedResponses.get() + " frames so far");
+        });
+        if (!encoded && unencodedResponses.incrementAndGet() % 1024 == 1)
+            log.warning("Cannot encode " + event.getClass().getSimpleName() + ", skipped " + unencodedResponses.get() + " responses so far");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (poller != null)
+            poller.join();
+        synchronized (this) {
+            if (requests != null)
+                requests.close();
+            if (responses != null)
+                responses.close();
+        }
+    }
+}
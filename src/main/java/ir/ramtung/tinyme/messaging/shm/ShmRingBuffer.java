@@ -0,0 +1,92 @@
+package ir.ramtung.tinyme.messaging.shm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class ShmRingBuffer implements Closeable {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int PRODUCER_SEQUENCE = 0;
+    private static final int CAPACITY = 8;
+    private static final int FRAME_SIZE = 12;
+    private static final int CONSUMER_SEQUENCE = 64;
+    private static final int HEADER_SIZE = 128;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int frameSize;
+    private final int mask;
+    private long cachedProducerSequence;
+    private long cachedConsumerSequence;
+
+    private ShmRingBuffer(FileChannel channel, MappedByteBuffer buffer, int capacity, int frameSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.frameSize = frameSize;
+        this.mask = capacity - 1;
+    }
+
+    public static ShmRingBuffer open(Path path, int capacity, int frameSize) throws IOException {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Ring capacity must be a power of two");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_SIZE + (long) capacity * frameSize;
+        boolean fresh = channel.size() == 0;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.nativeOrder());
+        if (fresh) {
+            buffer.putInt(CAPACITY, capacity);
+            buffer.putInt(FRAME_SIZE, frameSize);
+        } else if (buffer.getInt(CAPACITY) != capacity || buffer.getInt(FRAME_SIZE) != frameSize) {
+            channel.close();
+            throw new IOException("Ring " + path + " has a different layout");
+        }
+        return new ShmRingBuffer(channel, buffer, capacity, frameSize);
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public boolean offer(ByteBuffer frame) {
+        long producerSequence = (long) LONGS.getOpaque(buffer, PRODUCER_SEQUENCE);
+        if (producerSequence - cachedConsumerSequence >= capacity) {
+            cachedConsumerSequence = (long) LONGS.getAcquire(buffer, CONSUMER_SEQUENCE);
+            if (producerSequence - cachedConsumerSequence >= capacity)
+                return false;
+        }
+        buffer.put(slot(producerSequence), frame, 0, frameSize);
+        LONGS.setRelease(buffer, PRODUCER_SEQUENCE, producerSequence + 1);
+        return true;
+    }
+
+    public boolean poll(ByteBuffer frame) {
+        long consumerSequence = (long) LONGS.getOpaque(buffer, CONSUMER_SEQUENCE);
+        if (consumerSequence >= cachedProducerSequence) {
+            cachedProducerSequence = (long) LONGS.getAcquire(buffer, PRODUCER_SEQUENCE);
+            if (consumerSequence >= cachedProducerSequence)
+                return false;
+        }
+        frame.put(0, buffer, slot(consumerSequence), frameSize);
+        LONGS.setRelease(buffer, CONSUMER_SEQUENCE, consumerSequence + 1);
+        return true;
+    }
+
+    private int slot(long sequence) {
+        return HEADER_SIZE + (int) (sequence & mask) * frameSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
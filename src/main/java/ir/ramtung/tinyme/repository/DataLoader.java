@@ -3,9 +3,11 @@ package ir.ramtung.tinyme.repository;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
@@ -22,6 +24,7 @@ import java.util.logging.Logger;
 
 @Component
 @Profile("!test")
+@DependsOn("orderStoreSelector")
 public class DataLoader {
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final BrokerRepository brokerRepository;
@@ -136,11 +139,25 @@ public class DataLoader {
                     Security security = securityRepository.findSecurityByIsin(line[1]);
                     Broker broker = brokerRepository.findBrokerById(Long.parseLong(line[5]));
                     Shareholder shareholder = shareholderRepository.findShareholderById(Long.parseLong(line[6]));
-//orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity
-//0       1    2    3        4     5        6             7         8        9
+//orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity,stopPrice,requestId,timeInForce,expiryTime
+//0       1    2    3        4     5        6             7         8        9                 10        11        12          13
                     int peakSize = Integer.parseInt(line[8]);
+                    int stopPrice = line.length > 10 ? Integer.parseInt(line[10]) : 0;
                     Order order;
-                    if (peakSize == 0) {
+                    if (stopPrice != 0) {
+                        order = new StopLimitOrder(
+                                Long.parseLong(line[0]),
+                                security,
+                                Side.parse(line[2]),
+                                Integer.parseInt(line[3]),
+                                Integer.parseInt(line[4]),
+                                broker,
+                                shareholder,
+                                LocalDateTime.parse(line[7]),
+                                0,
+                                stopPrice,
+                                Long.parseLong(line[11]));
+                    } else if (peakSize == 0) {
                         order = new Order(
                                 Long.parseLong(line[0]),
                                 security,
@@ -168,6 +185,9 @@ public class DataLoader {
                                 0);
 
                     }
+                    if (line.length > 12)
+                        order.withTimeInForce(TimeInForce.valueOf(line[12]),
+                                line[13].isEmpty() ? 0 : EngineClock.toEpochNanos(LocalDateTime.parse(line[13])));
                     orders.addFirst(order);
                 }
             }
@@ -175,7 +195,10 @@ public class DataLoader {
         Iterator<Order> it = orders.descendingIterator();
         while (it.hasNext()) {
             Order order = it.next();
-            order.getSecurity().getOrderBook().enqueue(order);
+            if (order instanceof StopLimitOrder)
+                order.getSecurity().getInactiveOrderBook().enqueue(order);
+            else
+                order.getSecurity().getOrderBook().enqueue(order);
         }
         log.info("Order Book loaded");
     }
@@ -204,11 +227,15 @@ public class DataLoader {
                     joiner.add(String.valueOf(shareholder.getShareholderId()))
                             .add(shareholder.getName());
                     shareholderWriter.println(joiner);
-                    for (var entry : shareholder.getPositions().entrySet()) {
+                    int[] positions = shareholder.getPositions();
+                    for (int securityId = 0; securityId < positions.length; securityId++) {
+                        Security security = securityRepository.findSecurityById(securityId);
+                        if (security == null || positions[securityId] == 0)
+                            continue;
                         StringJoiner posJoiner = new StringJoiner(",");
                         posJoiner.add(String.valueOf(shareholder.getShareholderId()))
-                                .add(entry.getKey().getIsin())
-                                .add(String.valueOf(entry.getValue()));
+                                .add(security.getIsin())
+                                .add(String.valueOf(positions[securityId]));
                         positionWriter.println(posJoiner);
                     }
                 }
@@ -221,16 +248,21 @@ public class DataLoader {
         try (PrintWriter securityWriter = new PrintWriter(new FileWriter(securityCsvResource.getFile()))) {
             securityWriter.println("isin,tickSize,lotSize");
             try (PrintWriter orderBookWriter = new PrintWriter(new FileWriter(orderBookCsvResource.getFile()))) {
-                orderBookWriter.println("orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,status,peakSize,displayedQuantity");
+                orderBookWriter.println("orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity,stopPrice,requestId,timeInForce,expiryTime");
                 for (Security security : securityRepository.allSecurities()) {
                     StringJoiner joiner = new StringJoiner(",");
                     joiner.add(security.getIsin())
                             .add(String.valueOf(security.getTickSize()))
                             .add(String.valueOf(security.getLotSize()));
                     securityWriter.println(joiner);
-                    for (Order order : security.getOrderBook().getBuyQueue())
+                    BookSnapshot snapshot = security.snapshot();
+                    for (Order order : snapshot.buyOrders())
+                        orderBookWriter.println(getCSVString(order));
+                    for (Order order : snapshot.sellOrders())
+                        orderBookWriter.println(getCSVString(order));
+                    for (Order order : snapshot.inactiveBuyOrders())
                         orderBookWriter.println(getCSVString(order));
-                    for (Order order : security.getOrderBook().getSellQueue())
+                    for (Order order : snapshot.inactiveSellOrders())
                         orderBookWriter.println(getCSVString(order));
                 }
             }
@@ -254,6 +286,14 @@ public class DataLoader {
         } else {
             orderJoiner.add("0").add("0");
         }
+        if (order instanceof StopLimitOrder stopLimitOrder) {
+            orderJoiner.add(String.valueOf(stopLimitOrder.getStopPrice()))
+                    .add(String.valueOf(stopLimitOrder.getRequestId()));
+        } else {
+            orderJoiner.add("0").add("0");
+        }
+        orderJoiner.add(order.getTimeInForce().name())
+                .add(order.hasExpiry() ? EngineClock.toLocalDateTime(order.getExpiryNanos()).toString() : "");
         return orderJoiner.toString();
     }
 
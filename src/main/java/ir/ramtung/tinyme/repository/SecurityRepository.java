@@ -3,21 +3,43 @@ package ir.ramtung.tinyme.repository;
 import ir.ramtung.tinyme.domain.entity.Security;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 @Component
 public class SecurityRepository {
     private final HashMap<String, Security> securityByIsin = new HashMap<>();
+    private final ArrayList<Security> securityById = new ArrayList<>();
+
     public Security findSecurityByIsin(String isin) {
         return securityByIsin.get(isin);
     }
 
+    public Security findSecurityById(int id) {
+        if (id < 0 || id >= securityById.size())
+            return null;
+        return securityById.get(id);
+    }
+
+    public List<Security> findAllSecurities() {
+        return List.copyOf(securityById);
+    }
+
     public void addSecurity(Security security) {
-        securityByIsin.put(security.getIsin(), security);
+        Security existing = securityByIsin.put(security.getIsin(), security);
+        if (existing != null) {
+            security.assignId(existing.getId());
+            securityById.set(existing.getId(), security);
+            return;
+        }
+        security.assignId(securityById.size());
+        securityById.add(security);
     }
 
     public void clear() {
         securityByIsin.clear();
+        securityById.clear();
     }
 
     Iterable<? extends Security> allSecurities() {
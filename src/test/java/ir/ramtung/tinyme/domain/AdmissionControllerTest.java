@@ -0,0 +1,163 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.AdmissionController;
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.domain.service.ManualEngineClock;
+import ir.ramtung.tinyme.domain.service.TradingSession;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+    private final EngineClock originalClock = EngineClock.current();
+    private final TradingSession originalSession = TradingSession.current();
+    private final ManualEngineClock clock = new ManualEngineClock(0);
+    private final BrokerRepository brokerRepository = new BrokerRepository();
+
+    @BeforeEach
+    void useManualClock() {
+        EngineClock.use(clock);
+        brokerRepository.addBroker(Broker.builder().brokerId(1).build());
+        brokerRepository.addBroker(Broker.builder().brokerId(2).build());
+    }
+
+    @AfterEach
+    void restoreClock() {
+        EngineClock.use(originalClock);
+        TradingSession.use(originalSession);
+    }
+
+    private EnterOrderRq newOrderRq(long brokerId) {
+        return EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.BUY, 100, 1000, brokerId, 1, 0, 0, 0);
+    }
+
+    @Test
+    void brokers_exceeding_their_token_bucket_are_rejected_until_it_refills() {
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 0, 2, 2);
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.BROKER_RATE_LIMIT_EXCEEDED);
+        assertThat(admissionController.admit(newOrderRq(2))).isNull();
+
+        clock.advance(500_000_000L);
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.BROKER_RATE_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    void token_buckets_start_full_in_a_new_session() {
+        TradingSession.use(new TradingSession(LocalTime.of(12, 30)));
+        clock.set(EngineClock.toEpochNanos(LocalDateTime.of(2024, 1, 1, 12, 29, 59)));
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 0, 1, 2);
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.BROKER_RATE_LIMIT_EXCEEDED);
+
+        clock.advance(1_000_000L);
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.BROKER_RATE_LIMIT_EXCEEDED);
+        clock.set(EngineClock.toEpochNanos(LocalDateTime.of(2024, 1, 1, 12, 30)));
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.BROKER_RATE_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    void new_orders_are_rejected_between_the_high_and_low_watermarks() throws InterruptedException {
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 3, 1, 0, 0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<CountDownLatch> finished = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CountDownLatch done = new CountDownLatch(1);
+            CountDownLatch ownRelease = i == 0 ? new CountDownLatch(0) : release;
+            Runnable tracked = admissionController.tryAcquire(() -> {
+                try {
+                    ownRelease.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(new Thread(() -> {
+                tracked.run();
+                done.countDown();
+            }));
+            finished.add(done);
+        }
+
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.ENGINE_OVERLOADED);
+        assertThat(admissionController.admit(EnterOrderRq.createUpdateOrderRq(2, "ABC", 1, LocalDateTime.now(), Side.BUY, 100, 1000, 1, 1, 0, 0, 0))).isNull();
+
+        workers.forEach(Thread::start);
+        finished.get(0).await();
+        assertThat(admissionController.getInFlight()).isEqualTo(2);
+        assertThat(admissionController.admit(newOrderRq(1))).isEqualTo(Message.ENGINE_OVERLOADED);
+
+        release.countDown();
+        for (Thread worker : workers)
+            worker.join();
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+    }
+
+    @Test
+    void unknown_brokers_are_left_to_validation_and_get_no_token_bucket() {
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 0, 1, 1);
+        for (long brokerId = 100; brokerId < 200; brokerId++)
+            assertThat(admissionController.admit(newOrderRq(brokerId))).isNull();
+        assertThat(admissionController.admit(newOrderRq(1))).isNull();
+        assertThat(admissionController.getRateLimitedBrokers()).isEqualTo(1);
+    }
+
+    @Test
+    void the_ingress_capacity_bounds_every_request_by_its_weight() {
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 3, 0, 0);
+        Runnable batch = admissionController.tryAcquire(() -> {}, 2);
+        assertThat(admissionController.tryAcquire(() -> {}, 2)).isNull();
+        assertThat(admissionController.tryAcquire(() -> {})).isNotNull();
+        assertThat(admissionController.tryAcquire(() -> {})).isNull();
+        assertThat(admissionController.getInFlight()).isEqualTo(3);
+        batch.run();
+        assertThat(admissionController.getInFlight()).isEqualTo(1);
+        assertThat(admissionController.tryAcquire(() -> {}, 2)).isNotNull();
+    }
+
+    @Test
+    void concurrent_acquisitions_never_exceed_the_capacity() throws InterruptedException {
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 100, 0, 0);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++)
+                    if (admissionController.tryAcquire(() -> {}, 3) != null)
+                        acquired.incrementAndGet();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        assertThat(acquired.get()).isEqualTo(33);
+        assertThat(admissionController.getInFlight()).isEqualTo(99);
+    }
+}
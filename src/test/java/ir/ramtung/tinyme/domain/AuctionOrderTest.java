@@ -9,6 +9,7 @@ import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.TradeDTO;
 import ir.ramtung.tinyme.messaging.event.*;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
+import ir.ramtung.tinyme.messaging.request.BulkChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
@@ -18,6 +19,7 @@ import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -30,7 +32,8 @@ import java.util.List;
 import static ir.ramtung.tinyme.domain.entity.Side.BUY;
 import static ir.ramtung.tinyme.domain.entity.Side.SELL;
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @Import(MockedJMSTestConfig.class)
@@ -235,4 +238,56 @@ public class AuctionOrderTest {
         verify(eventPublisher).publish(new TradeEvent("ABC", 25, 4, 1, 2));
         verify(eventPublisher).publish(new TradeEvent("ABC", 25, 3, 1, 2));
     }
+
+    @Test
+    void bulk_change_matching_state_opens_every_security_and_publishes_in_security_order() {
+        Security otherSecurity = Security.builder().isin("XYZ").build();
+        otherSecurity.changeMatchingState(MatchingState.AUCTION);
+        securityRepository.addSecurity(otherSecurity);
+
+        orderHandler.handleBulkChangeMatchingState(BulkChangeMatchingStateRq.createMarketWideRq(MatchingState.CONTINUOUS));
+
+        assertThat(security.getState()).isEqualTo(MatchingState.CONTINUOUS);
+        assertThat(otherSecurity.getState()).isEqualTo(MatchingState.CONTINUOUS);
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher).publish(any(TradeEvent.class));
+        inOrder.verify(eventPublisher).publish(new SecurityStateChangedEvent("ABC", MatchingState.CONTINUOUS));
+        inOrder.verify(eventPublisher).publish(new SecurityStateChangedEvent("XYZ", MatchingState.CONTINUOUS));
+    }
+
+    @Test
+    void bulk_change_matching_state_only_touches_listed_securities() {
+        Security otherSecurity = Security.builder().isin("XYZ").build();
+        otherSecurity.changeMatchingState(MatchingState.AUCTION);
+        securityRepository.addSecurity(otherSecurity);
+
+        orderHandler.handleBulkChangeMatchingState(new BulkChangeMatchingStateRq(List.of("XYZ", "UNKNOWN"), MatchingState.CONTINUOUS));
+
+        assertThat(security.getState()).isEqualTo(MatchingState.AUCTION);
+        assertThat(otherSecurity.getState()).isEqualTo(MatchingState.CONTINUOUS);
+        verify(eventPublisher).publish(new SecurityStateChangedEvent("XYZ", MatchingState.CONTINUOUS));
+        verify(eventPublisher, never()).publish(new SecurityStateChangedEvent("ABC", MatchingState.CONTINUOUS));
+    }
+
+    @Test
+    void bulk_change_matching_state_applies_credit_and_positions_of_all_uncrossed_securities() {
+        Security otherSecurity = Security.builder().isin("XYZ").build();
+        otherSecurity.changeMatchingState(MatchingState.AUCTION);
+        securityRepository.addSecurity(otherSecurity);
+        shareholder.incPosition(otherSecurity, 100);
+        Shareholder buyer = Shareholder.builder().shareholderId(2).build();
+        shareholderRepository.addShareholder(buyer);
+        otherSecurity.getOrderBook().enqueue(new Order(21, otherSecurity, BUY, 2, 20, buyerBroker, buyer, 0));
+        otherSecurity.getOrderBook().enqueue(new Order(22, otherSecurity, SELL, 2, 20, broker, shareholder, 0));
+        security.findOpeningData();
+        otherSecurity.findOpeningData();
+
+        orderHandler.handleBulkChangeMatchingState(BulkChangeMatchingStateRq.createMarketWideRq(MatchingState.CONTINUOUS));
+
+        assertThat(broker.getCredit()).isEqualTo(100_000_000L + 105 + 45 + 40);
+        assertThat(buyerBroker.getCredit()).isEqualTo(200);
+        assertThat(buyer.hasEnoughPositionsOn(otherSecurity, 2)).isTrue();
+        assertThat(shareholder.hasEnoughPositionsOn(otherSecurity, 99)).isFalse();
+        verify(eventPublisher).publish(new TradeEvent("XYZ", 20, 2, 21, 22));
+    }
 }
@@ -5,6 +5,7 @@ import ir.ramtung.tinyme.domain.service.Matcher;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +34,7 @@ public class BrokerCreditTest {
     @BeforeEach
     void setup(){
 
-        security = Security.builder().isin("A").build();
+        security = Security.builder().id(0).isin("A").build();
         firstBroker = Broker.builder().brokerId(1).credit(10_000_000L).build();
         secondBroker = Broker.builder().brokerId(2).credit(10_000_000L).build();
         shareholder = Shareholder.builder().build();
@@ -150,4 +151,15 @@ public class BrokerCreditTest {
             // Also, I could use eventPublisher here(like OrderHandler), but I want to involve fewer elements.
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void mass_cancel_of_a_broker_releases_the_credit_of_all_its_buy_orders() {
+        long buyValue = orders.stream().filter(order -> order.getSide() == Side.BUY).mapToLong(Order::getValue).sum();
+        List<Order> cancelled = security.cancelOrders(new MassCancelRq(1, null, null, 1L, null));
+        assertThat(cancelled).extracting(Order::getOrderId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        assertThat(firstBroker.getCredit()).isEqualTo(10_000_000L + buyValue);
+        assertThat(orderBook.getBuyQueue()).isEmpty();
+        assertThat(orderBook.getSellQueue()).hasSize(5);
+        assertThat(security.cancelOrders(new MassCancelRq(2, null, Side.BUY, 2L, null))).isEmpty();
+    }
+}
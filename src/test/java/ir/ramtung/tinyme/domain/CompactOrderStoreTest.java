@@ -0,0 +1,130 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ir.ramtung.tinyme.domain.entity.OrderStore.NIL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactOrderStoreTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private CompactOrderStore store;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().build();
+        broker = Broker.builder().build();
+        shareholder = Shareholder.builder().build();
+        store = new CompactOrderStore(2);
+    }
+
+    private Order order(long orderId, int quantity, int price) {
+        return new Order(orderId, security, Side.BUY, quantity, price, broker, shareholder, 0);
+    }
+
+    @Test
+    void allocated_slots_mirror_the_order_and_grow_past_the_initial_capacity() {
+        int first = store.allocate(order(1, 304, 15700), 15700);
+        int second = store.allocate(order(2, 43, 15500), 15500);
+        int third = store.allocate(order(3, 445, 15450), 15450);
+
+        assertThat(List.of(first, second, third)).doesNotHaveDuplicates();
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.orderId(third)).isEqualTo(3);
+        assertThat(store.key(third)).isEqualTo(15450);
+        assertThat(store.quantity(second)).isEqualTo(43);
+        assertThat(store.price(second)).isEqualTo(15500);
+        assertThat(store.brokerId(first)).isEqualTo(broker.getBrokerId());
+        assertThat(store.shareholderId(first)).isEqualTo(shareholder.getShareholderId());
+        assertThat(store.entryNanos(first)).isEqualTo(store.order(first).getEntryNanos());
+        assertThat(store.next(third)).isEqualTo(NIL);
+    }
+
+    @Test
+    void freed_slots_are_reused() {
+        store.allocate(order(1, 304, 15700), 15700);
+        int slot = store.allocate(order(2, 43, 15500), 15500);
+        store.free(slot);
+        assertThat(store.allocate(order(3, 445, 15450), 15450)).isEqualTo(slot);
+        assertThat(store.orderId(slot)).isEqualTo(3);
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void freeing_a_slot_twice_is_rejected() {
+        int slot = store.allocate(order(1, 304, 15700), 15700);
+        store.free(slot);
+        assertThatThrownBy(() -> store.free(slot)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> store.free(5)).isInstanceOf(IllegalStateException.class);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void refresh_picks_up_quantity_changes_of_iceberg_orders() {
+        IcebergOrder iceberg = new IcebergOrder(1, security, Side.SELL, 500, 15900, broker, shareholder, 100, 0);
+        iceberg.queue();
+        int slot = store.allocate(iceberg, 15900);
+        assertThat(store.quantity(slot)).isEqualTo(100);
+        assertThat(store.totalQuantity(slot)).isEqualTo(500);
+        assertThat(store.peakSize(slot)).isEqualTo(100);
+
+        iceberg.decreaseQuantity(100);
+        assertThat(store.refresh(slot)).isEqualTo(-100);
+        iceberg.replenish();
+        assertThat(store.refresh(slot)).isEqualTo(100);
+        assertThat(store.totalQuantity(slot)).isEqualTo(400);
+    }
+
+    @Test
+    void broker_and_shareholder_indexes_survive_removals_in_any_order() {
+        Broker other = Broker.builder().brokerId(2).build();
+        OrderQueue queue = new OrderQueue(Order::getPrice);
+        for (int i = 1; i <= 6; i++)
+            queue.insert(new Order(i, security, Side.BUY, 10 * i, 15700 - i, i % 2 == 0 ? other : broker, shareholder, 0));
+
+        queue.removeByOrderId(3);
+        queue.removeByOrderId(2);
+        queue.removeFirst();
+
+        assertThat(queue.findByBrokerId(broker.getBrokerId())).extracting(Order::getOrderId).containsExactly(5L);
+        assertThat(queue.findByBrokerId(other.getBrokerId())).extracting(Order::getOrderId).containsExactly(4L, 6L);
+        assertThat(queue.totalQuantityByShareholderId(shareholder.getShareholderId())).isEqualTo(40 + 50 + 60);
+        assertThat(queue.findByOrderId(4).getQuantity()).isEqualTo(40);
+        assertThat(queue.findByOrderId(3)).isNull();
+    }
+
+    @Test
+    void resting_orders_are_indexed_without_boxed_entries() {
+        int count = 100_000;
+        List<Broker> brokers = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            brokers.add(Broker.builder().brokerId(i).build());
+        List<Shareholder> shareholders = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+            shareholders.add(Shareholder.builder().shareholderId(i).build());
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            orders.add(new Order(i, security, Side.BUY, 10, 15000 - i % 100, brokers.get(i % 50), shareholders.get(i % 1_000), 0));
+
+        OrderQueue queue = new OrderQueue(Order::getPrice);
+        orders.forEach(queue::insert);
+        assertThat(queue.footprintBytes() / count).isLessThan(200);
+
+        queue.clear();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        orders.forEach(queue::insert);
+        long allocatedPerOrder = (threads.getCurrentThreadAllocatedBytes() - before) / count;
+
+        assertThat(queue).hasSize(count);
+        assertThat(allocatedPerOrder).isLessThan(8);
+    }
+}
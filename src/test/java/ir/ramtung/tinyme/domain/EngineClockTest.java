@@ -0,0 +1,65 @@
+package ir.ramtung.tinyme.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.domain.service.ManualEngineClock;
+import ir.ramtung.tinyme.domain.service.SystemEngineClock;
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineClockTest {
+    private final EngineClock originalClock = EngineClock.current();
+
+    @AfterEach
+    void restoreClock() {
+        EngineClock.use(originalClock);
+    }
+
+    @Test
+    void orders_and_events_take_their_time_from_the_engine_clock() {
+        ManualEngineClock clock = new ManualEngineClock(1_700_000_000_123_456_789L);
+        EngineClock.use(clock);
+        Security security = Security.builder().build();
+        Order order = new Order(1, security, Side.BUY, 10, 100, Broker.builder().build(), Shareholder.builder().build(), 0);
+        clock.advance(5);
+
+        assertThat(order.getEntryNanos()).isEqualTo(1_700_000_000_123_456_789L);
+        assertThat(new OrderAcceptedEvent(1, 1).getTimeNanos()).isEqualTo(1_700_000_000_123_456_794L);
+    }
+
+    @Test
+    void events_serialize_their_time_as_an_iso_local_date_time() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 9, 0, 0, 123_456_789);
+        EngineClock.use(new ManualEngineClock(EngineClock.toEpochNanos(time)));
+        ObjectMapper mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        String json = mapper.writeValueAsString(new OrderAcceptedEvent(1, 1));
+        assertThat(mapper.readTree(json).get("time").asText()).isEqualTo("2024-03-01T09:00:00.123456789");
+        assertThat(json).doesNotContain("timeNanos");
+        assertThat(mapper.readValue(json, OrderAcceptedEvent.class).getTime()).isEqualTo(time);
+    }
+
+    @Test
+    void local_date_time_round_trips_through_epoch_nanos() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 9, 0, 0, 123_456_789);
+        assertThat(EngineClock.toLocalDateTime(EngineClock.toEpochNanos(time))).isEqualTo(time);
+    }
+
+    @Test
+    void system_clock_never_goes_backwards() {
+        SystemEngineClock clock = new SystemEngineClock();
+        long previous = clock.nanos();
+        for (int i = 0; i < 10_000; i++) {
+            long now = clock.nanos();
+            assertThat(now).isGreaterThanOrEqualTo(previous);
+            previous = now;
+        }
+    }
+}
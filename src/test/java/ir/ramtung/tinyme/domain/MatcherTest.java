@@ -31,7 +31,7 @@ public class MatcherTest {
 
     @BeforeEach
     void setupOrderBook() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         broker = Broker.builder().credit(100_000_000L).build();
         shareholder = Shareholder.builder().build();
         shareholder.incPosition(security, 100_000);
@@ -109,7 +109,7 @@ public class MatcherTest {
 
     @Test
     void iceberg_order_in_queue_matched_completely_after_three_rounds() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         broker = Broker.builder().build();
         orderBook = security.getOrderBook();
         orders = Arrays.asList(
@@ -134,7 +134,7 @@ public class MatcherTest {
 
     @Test
     void insert_iceberg_and_match_until_quantity_is_less_than_peak_size() {
-        security = Security.builder().isin("TEST").build();
+        security = Security.builder().id(0).isin("TEST").build();
         shareholder.incPosition(security, 1_000);
         security.getOrderBook().enqueue(
                 new Order(1, security, Side.SELL, 100, 10, broker, shareholder, 0)
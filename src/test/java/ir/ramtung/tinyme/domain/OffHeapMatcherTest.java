@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.OrderStoreBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "orderStore=OFF_HEAP")
+class OffHeapMatcherTest extends MatcherTest {
+    @AfterAll
+    static void restoreBackend() {
+        OrderStoreBackend.use(OrderStoreBackend.HEAP);
+    }
+
+    @Test
+    void books_are_backed_by_the_configured_off_heap_store() {
+        assertThat(OrderStoreBackend.current()).isEqualTo(OrderStoreBackend.OFF_HEAP);
+    }
+}
@@ -0,0 +1,73 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ir.ramtung.tinyme.domain.entity.OrderStore.NIL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapOrderStoreTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private OffHeapOrderStore store;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().id(0).build();
+        broker = Broker.builder().brokerId(7).build();
+        shareholder = Shareholder.builder().shareholderId(9).build();
+        store = new OffHeapOrderStore();
+    }
+
+    @Test
+    void records_span_several_chunks_and_keep_their_fields() {
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            slots.add(store.allocate(new Order(i, security, Side.SELL, 10 + i, 15000 + i, broker, shareholder, 0), 15000 + i));
+
+        assertThat(slots).doesNotHaveDuplicates();
+        assertThat(store.size()).isEqualTo(10_000);
+        int last = slots.get(9_999);
+        assertThat(store.orderId(last)).isEqualTo(9_999);
+        assertThat(store.price(last)).isEqualTo(24_999);
+        assertThat(store.quantity(last)).isEqualTo(10_009);
+        assertThat(store.brokerId(last)).isEqualTo(7);
+        assertThat(store.shareholderId(last)).isEqualTo(9);
+        assertThat(store.next(last)).isEqualTo(NIL);
+    }
+
+    @Test
+    void freed_records_are_reused_and_double_frees_are_rejected() {
+        store.allocate(new Order(1, security, Side.BUY, 304, 15700, broker, shareholder, 0), 15700);
+        int slot = store.allocate(new Order(2, security, Side.BUY, 43, 15500, broker, shareholder, 0), 15500);
+        store.free(slot);
+
+        assertThatThrownBy(() -> store.free(slot)).isInstanceOf(IllegalStateException.class);
+        assertThat(store.allocate(new Order(3, security, Side.BUY, 445, 15450, broker, shareholder, 0), 15450)).isEqualTo(slot);
+        assertThat(store.orderId(slot)).isEqualTo(3);
+    }
+
+    @Test
+    void order_queue_matches_iceberg_orders_on_an_off_heap_store() {
+        OrderQueue queue = new OrderQueue(Order::getPrice, true, store);
+        IcebergOrder iceberg = new IcebergOrder(1, security, Side.SELL, 500, 15900, broker, shareholder, 100, 0);
+        iceberg.queue();
+        queue.insert(iceberg);
+        queue.insert(new Order(2, security, Side.SELL, 50, 15900, broker, shareholder, 0));
+
+        iceberg.decreaseQuantity(100);
+        iceberg.replenish();
+        queue.moveFirstToLevelTail();
+
+        assertThat(queue).extracting(Order::getOrderId).containsExactly(2L, 1L);
+        assertThat(queue.level(15900)).isEqualTo(new PriceLevel(15900, 150, 2));
+        assertThat(queue.totalQuantityWhile(price -> price <= 15900, 1_000)).isEqualTo(450);
+        assertThat(queue.findByBrokerId(7)).hasSize(2);
+    }
+}
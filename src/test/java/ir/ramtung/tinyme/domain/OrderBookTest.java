@@ -1,6 +1,7 @@
 package ir.ramtung.tinyme.domain;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.Matcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -14,7 +15,7 @@ class OrderBookTest {
     private List<Order> orders;
     @BeforeEach
     void setupOrderBook() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         Broker broker = Broker.builder().build();
         Shareholder shareholder = Shareholder.builder().build();
         shareholder.incPosition(security, 100_000);
@@ -76,4 +77,76 @@ class OrderBookTest {
         orderBook.removeByOrderId(Side.SELL, 10);
         assertThat(orderBook.getSellQueue()).isEqualTo(orders.subList(5, 9));
     }
-}
\ No newline at end of file
+
+    @Test
+    void moving_first_order_to_level_tail_keeps_it_ahead_of_worse_prices() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.enqueue(new Order(11, security, Side.BUY, 100, 15700, orders.get(0).getBroker(), orders.get(0).getShareholder(), 0));
+        orderBook.moveFirstToLevelTail(Side.BUY);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(11L, 1L, 2L, 3L, 4L, 5L);
+        orderBook.moveFirstToLevelTail(Side.BUY);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 11L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void moving_a_lone_first_order_to_level_tail_leaves_the_queue_unchanged() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.moveFirstToLevelTail(Side.SELL);
+        assertThat(orderBook.getSellQueue()).isEqualTo(orders.subList(5, 10));
+    }
+
+    @Test
+    void duplicate_order_ids_are_found_and_removed_in_queue_order() {
+        OrderBook orderBook = security.getOrderBook();
+        Order duplicate = new Order(3, security, Side.BUY, 100, 15300, orders.get(0).getBroker(), orders.get(0).getShareholder(), 0);
+        orderBook.enqueue(duplicate);
+        assertThat(orderBook.findByOrderId(Side.BUY, 3)).isEqualTo(orders.get(2));
+        orderBook.removeByOrderId(Side.BUY, 3);
+        assertThat(orderBook.findByOrderId(Side.BUY, 3)).isEqualTo(duplicate);
+        orderBook.removeByOrderId(Side.BUY, 3);
+        assertThat(orderBook.findByOrderId(Side.BUY, 3)).isNull();
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 4L, 5L);
+    }
+
+    @Test
+    void market_depth_reports_aggregated_level_changes_in_sequence() {
+        OrderBook orderBook = security.getOrderBook();
+        assertThat(orderBook.levels(Side.BUY)).containsExactly(
+                new PriceLevel(15700, 304, 1),
+                new PriceLevel(15500, 43, 1),
+                new PriceLevel(15450, 971, 2),
+                new PriceLevel(15400, 1000, 1));
+        MarketDepth marketDepth = new MarketDepth();
+        assertThat(marketDepth.collectUpdates(orderBook)).hasSize(7)
+                .allMatch(update -> update.action() == MarketDepth.Action.ADD);
+
+        orderBook.removeByOrderId(Side.BUY, 3);
+        orderBook.removeByOrderId(Side.BUY, 2);
+        assertThat(marketDepth.collectUpdates(orderBook)).containsExactly(
+                new MarketDepth.Update(8, Side.BUY, MarketDepth.Action.CHANGE, new PriceLevel(15450, 526, 1)),
+                new MarketDepth.Update(9, Side.BUY, MarketDepth.Action.DELETE, new PriceLevel(15500, 0, 0)));
+        assertThat(marketDepth.collectUpdates(orderBook)).isEmpty();
+    }
+
+    @Test
+    void level_aggregates_follow_partial_fills_and_iceberg_replenishment() {
+        OrderBook orderBook = security.getOrderBook();
+        Broker broker = orders.get(0).getBroker();
+        Shareholder shareholder = orders.get(0).getShareholder();
+        orderBook.enqueue(new IcebergOrder(11, security, Side.BUY, 500, 15700, broker, shareholder, 100, 0));
+        assertThat(orderBook.topOfBook().bid()).isEqualTo(new PriceLevel(15700, 404, 2));
+
+        Matcher matcher = new Matcher();
+        matcher.match(new Order(12, security, Side.SELL, 350, 15700, broker, shareholder, 0));
+        assertThat(orderBook.topOfBook().bid()).isEqualTo(new PriceLevel(15700, 54, 1));
+        matcher.match(new Order(13, security, Side.SELL, 54, 15700, broker, shareholder, 0));
+        assertThat(orderBook.topOfBook().bid()).isEqualTo(new PriceLevel(15700, 100, 1));
+        matcher.match(new Order(14, security, Side.SELL, 100, 15500, broker, shareholder, 0));
+
+        assertThat(orderBook.levels(Side.BUY)).containsExactly(
+                new PriceLevel(15700, 100, 1),
+                new PriceLevel(15500, 43, 1),
+                new PriceLevel(15450, 971, 2),
+                new PriceLevel(15400, 1000, 1));
+    }
+}
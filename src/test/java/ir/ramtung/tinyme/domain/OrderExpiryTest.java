@@ -0,0 +1,154 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.domain.service.ManualEngineClock;
+import ir.ramtung.tinyme.domain.service.Matcher;
+import ir.ramtung.tinyme.domain.service.TradingSession;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class OrderExpiryTest {
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private final EngineClock originalClock = EngineClock.current();
+    private final TradingSession originalSession = TradingSession.current();
+    private final ManualEngineClock clock = new ManualEngineClock(EngineClock.toEpochNanos(OPEN));
+    private final Matcher matcher = new Matcher();
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+
+    @BeforeEach
+    void setup() {
+        EngineClock.use(clock);
+        security = Security.builder().id(0).isin("ABC").build();
+        broker = Broker.builder().brokerId(1).credit(10_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+    }
+
+    @AfterEach
+    void restoreClock() {
+        EngineClock.use(originalClock);
+        TradingSession.use(originalSession);
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price, TimeInForce timeInForce, LocalDateTime expiryTime) throws Exception {
+        security.newOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, OPEN, side, quantity, price, 1, 1, 0, 0, 0, timeInForce, expiryTime),
+                broker, shareholder, matcher);
+    }
+
+    @Test
+    void timing_wheel_fires_timeouts_in_deadline_order_and_skips_cancelled_ones() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 1_000);
+        Map<Long, TimingWheel.Timeout<Long>> timeouts = new HashMap<>();
+        for (long deadline = 1_000; deadline < 1_000 + 5_000_000; deadline += 1 + random.nextInt(50_000))
+            timeouts.put(deadline, wheel.schedule(deadline, deadline));
+        List<Long> cancelled = new ArrayList<>();
+        for (Map.Entry<Long, TimingWheel.Timeout<Long>> entry : timeouts.entrySet())
+            if (random.nextInt(4) == 0 && wheel.cancel(entry.getValue()))
+                cancelled.add(entry.getKey());
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 1_000; now < 1_000 + 5_000_000; now += random.nextInt(100_000)) {
+            long until = now;
+            List<Long> batch = wheel.advance(now);
+            assertThat(batch).allMatch(deadline -> deadline <= until);
+            fired.addAll(batch);
+        }
+        fired.addAll(wheel.advance(Long.MAX_VALUE / 2));
+
+        assertThat(fired).isSorted().doesNotContainAnyElementsOf(cancelled).hasSize(timeouts.size() - cancelled.size());
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void good_till_time_buy_order_expires_and_releases_its_credit() throws Exception {
+        enter(1, Side.BUY, 100, 1000, TimeInForce.GTT, OPEN.plusMinutes(30));
+        enter(2, Side.BUY, 100, 900, TimeInForce.GTC, null);
+        assertThat(broker.getCredit()).isEqualTo(10_000_000L - 100 * 1000 - 100 * 900);
+
+        clock.advance(29 * 60 * 1_000_000_000L);
+        assertThat(security.expireOrders(clock.nanos())).isEmpty();
+        clock.advance(60 * 1_000_000_000L);
+        assertThat(security.expireOrders(clock.nanos())).extracting(Order::getOrderId).containsExactly(1L);
+
+        assertThat(security.getOrderBook().getBuyQueue()).extracting(Order::getOrderId).containsExactly(2L);
+        assertThat(broker.getCredit()).isEqualTo(10_000_000L - 100 * 900);
+        assertThat(security.getExpiries().size()).isZero();
+    }
+
+    @Test
+    void filled_and_deleted_orders_cancel_their_expiry_while_day_orders_expire_at_midnight() throws Exception {
+        enter(1, Side.SELL, 100, 1000, TimeInForce.DAY, null);
+        enter(2, Side.SELL, 100, 1100, TimeInForce.GTD, OPEN);
+        enter(3, Side.SELL, 100, 1200, TimeInForce.DAY, null);
+        assertThat(security.getExpiries().size()).isEqualTo(3);
+
+        enter(4, Side.BUY, 100, 1000, TimeInForce.GTC, null);
+        security.getOrderBook().removeByOrderId(Side.SELL, 3);
+        assertThat(security.getExpiries().size()).isEqualTo(1);
+
+        clock.set(EngineClock.toEpochNanos(OPEN.toLocalDate().plusDays(1).atStartOfDay()) - 1);
+        assertThat(security.expireOrders(clock.nanos())).isEmpty();
+        clock.advance(1);
+        assertThat(security.expireOrders(clock.nanos())).extracting(Order::getOrderId).containsExactly(2L);
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void snapshots_keep_the_time_in_force_and_reloaded_orders_rearm_their_expiry() throws Exception {
+        enter(1, Side.SELL, 100, 1000, TimeInForce.GTT, OPEN.plusMinutes(30));
+        Order saved = security.snapshot().sellOrders().get(0);
+        assertThat(saved.getTimeInForce()).isEqualTo(TimeInForce.GTT);
+        assertThat(saved.getExpiryNanos()).isEqualTo(EngineClock.toEpochNanos(OPEN.plusMinutes(30)));
+
+        Security reloaded = Security.builder().id(0).isin("ABC").build();
+        reloaded.getOrderBook().enqueue(new Order(1, reloaded, Side.SELL, 100, 1000, broker, shareholder, OPEN, OrderStatus.QUEUED, 0)
+                .withTimeInForce(saved.getTimeInForce(), saved.getExpiryNanos()));
+        assertThat(reloaded.getExpiries().size()).isEqualTo(1);
+
+        clock.advance(31 * 60 * 1_000_000_000L);
+        assertThat(reloaded.expireOrders(clock.nanos())).extracting(Order::getOrderId).containsExactly(1L);
+    }
+
+    @Test
+    void day_and_good_till_date_orders_expire_at_the_configured_session_close() throws Exception {
+        TradingSession.use(new TradingSession(LocalTime.of(12, 30)));
+        enter(1, Side.SELL, 100, 1000, TimeInForce.DAY, null);
+        enter(2, Side.SELL, 100, 1100, TimeInForce.GTD, OPEN.plusDays(1));
+
+        assertThat(security.getOrderBook().getSellQueue()).extracting(Order::getExpiryNanos).containsExactly(
+                EngineClock.toEpochNanos(OPEN.toLocalDate().atTime(12, 30)),
+                EngineClock.toEpochNanos(OPEN.toLocalDate().plusDays(1).atTime(12, 30)));
+        clock.set(EngineClock.toEpochNanos(OPEN.toLocalDate().atTime(12, 30)));
+        assertThat(security.expireOrders(clock.nanos())).extracting(Order::getOrderId).containsExactly(1L);
+    }
+
+    @Test
+    void inactive_stop_limit_orders_expire_during_an_auction() throws Exception {
+        security.newOrder(EnterOrderRq.createNewOrderRq(7, "ABC", 1, OPEN, Side.BUY, 100, 1000, 1, 1, 0, 0, 1000, TimeInForce.GTT, OPEN.plusMinutes(30)),
+                broker, shareholder, matcher);
+        security.changeMatchingState(MatchingState.AUCTION);
+
+        clock.advance(31 * 60 * 1_000_000_000L);
+        assertThat(security.expireOrders(clock.nanos())).extracting(Order::getOrderId, Order::getRequestId).containsExactly(tuple(1L, 7L));
+        assertThat(security.getInactiveOrderBook().getBuyQueue()).isEmpty();
+        assertThat(security.getExpiries().size()).isZero();
+    }
+}
@@ -2,6 +2,7 @@ package ir.ramtung.tinyme.domain;
 
 import ir.ramtung.tinyme.config.MockedJMSTestConfig;
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.EngineClock;
 import ir.ramtung.tinyme.domain.service.Matcher;
 import ir.ramtung.tinyme.domain.service.OrderHandler;
 import ir.ramtung.tinyme.messaging.EventPublisher;
@@ -11,12 +12,14 @@ import ir.ramtung.tinyme.messaging.event.*;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
 import ir.ramtung.tinyme.repository.BrokerRepository;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -116,6 +119,132 @@ public class OrderHandlerTest {
         verify(eventPublisher).publish(new OrderExecutedEvent(1, 200, List.of(new TradeDTO(trade1), new TradeDTO(trade2))));
     }
 
+    @Test
+    void price_level_updates_show_the_displayed_quantity_of_iceberg_orders() {
+        security.getOrderBook().enqueue(new IcebergOrder(100, security, Side.BUY, 1000, 15500, broker1, shareholder, 200, 0));
+        security.getOrderBook().enqueue(new Order(101, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 150, 15450, 2, shareholder.getShareholderId(), 0, 0, 0));
+        verify(eventPublisher).publish(new PriceLevelUpdatedEvent("ABC", 1, Side.BUY, MarketDepth.Action.ADD, 15500, 50, 1));
+        verify(eventPublisher).publish(new PriceLevelUpdatedEvent("ABC", 2, Side.BUY, MarketDepth.Action.ADD, 15400, 300, 1));
+
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(2, "ABC", Side.BUY, 101));
+        verify(eventPublisher).publish(new PriceLevelUpdatedEvent("ABC", 3, Side.BUY, MarketDepth.Action.DELETE, 15400, 0, 0));
+    }
+
+    @Test
+    void best_bid_and_offer_is_published_only_when_the_top_of_book_changes() {
+        security.getOrderBook().enqueue(new IcebergOrder(100, security, Side.BUY, 1000, 15500, broker1, shareholder, 200, 0));
+        security.getOrderBook().enqueue(new Order(101, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 150, 15450, 2, shareholder.getShareholderId(), 0, 0, 0));
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(2, "ABC", Side.BUY, 101));
+
+        verify(eventPublisher).publish(any(BestBidAndOfferEvent.class));
+        verify(eventPublisher).publish(new BestBidAndOfferEvent("ABC", new PriceLevel(15500, 50, 1), null));
+        assertThat(security.getTopOfBook()).isEqualTo(new TopOfBook(new PriceLevel(15500, 50, 1), null));
+    }
+
+    @Test
+    void session_statistics_are_published_after_requests_that_trade() {
+        security.getOrderBook().enqueue(new IcebergOrder(100, security, Side.BUY, 1000, 15500, broker1, shareholder, 200, 0));
+        security.getOrderBook().enqueue(new Order(101, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 150, 15450, 2, shareholder.getShareholderId(), 0, 0, 0));
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(2, "ABC", Side.BUY, 101));
+
+        verify(eventPublisher).publish(any(TradeStatisticsEvent.class));
+        verify(eventPublisher).publish(new TradeStatisticsEvent("ABC", 15500, 15500, 15500, 15500, 150, 15500L * 150));
+    }
+
+    @Test
+    void mass_cancel_deletes_the_orders_of_a_broker_in_one_event() {
+        security.getOrderBook().enqueue(new Order(100, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+        security.getOrderBook().enqueue(new Order(101, security, Side.SELL, 300, 15600, broker1, shareholder, 0));
+        security.getOrderBook().enqueue(new Order(102, security, Side.SELL, 300, 15700, broker2, shareholder, 0));
+
+        orderHandler.handleMassCancel(new MassCancelRq(1, null, null, 1L, null));
+        orderHandler.handleMassCancel(new MassCancelRq(2, null, null, null, null));
+
+        verify(eventPublisher).publish(new BatchResultEvent(1, List.of(new OrderDeletedEvent(1, 100), new OrderDeletedEvent(1, 101))));
+        verify(eventPublisher).publish(new OrderRejectedEvent(2, 0, List.of(Message.MASS_CANCEL_WITHOUT_FILTER)));
+        assertThat(security.getOrderBook().getSellQueue()).extracting(Order::getOrderId).containsExactly(102L);
+    }
+
+    @Test
+    void immediate_or_cancel_buy_order_discards_its_remainder_without_reserving_credit() {
+        Broker broker = Broker.builder().brokerId(10).credit(100_000).build();
+        brokerRepository.addBroker(broker);
+        security.getOrderBook().enqueue(new Order(100, security, Side.SELL, 30, 500, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.BUY, 100, 550, 10, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.IOC));
+
+        verify(eventPublisher).publish(new OrderAcceptedEvent(1, 200));
+        verify(eventPublisher).publish(any(OrderExecutedEvent.class));
+        assertThat(broker.getCredit()).isEqualTo(100_000 - 30 * 500);
+        assertThat(security.getOrderBook().getBuyQueue()).isEmpty();
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void immediate_or_cancel_order_publishes_a_deletion_for_its_discarded_quantity() {
+        brokerRepository.addBroker(Broker.builder().brokerId(10).credit(100_000).build());
+        security.getOrderBook().enqueue(new Order(100, security, Side.SELL, 30, 500, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.BUY, 100, 550, 10, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.IOC));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(2, "ABC", 201, LocalDateTime.now(), Side.BUY, 50, 550, 10, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.IOC));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(3, "ABC", 202, LocalDateTime.now(), Side.SELL, 20, 500, 2, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.IOC));
+
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher).publish(new OrderAcceptedEvent(1, 200));
+        inOrder.verify(eventPublisher).publish(any(OrderExecutedEvent.class));
+        inOrder.verify(eventPublisher).publish(new OrderDeletedEvent(1, 200));
+        verify(eventPublisher).publish(new OrderAcceptedEvent(2, 201));
+        verify(eventPublisher).publish(new OrderDeletedEvent(2, 201));
+        verify(eventPublisher).publish(new OrderDeletedEvent(3, 202));
+        assertThat(security.getOrderBook().getBuyQueue()).isEmpty();
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void fill_or_kill_order_is_rejected_without_touching_the_book_when_depth_is_insufficient() {
+        security.getOrderBook().enqueue(new IcebergOrder(100, security, Side.BUY, 400, 15500, broker1, shareholder, 100, 0));
+        security.getOrderBook().enqueue(new Order(101, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 500, 15450, 2, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.FOK));
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(2, "ABC", 201, LocalDateTime.now(), Side.SELL, 400, 15450, 2, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.FOK));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 200, List.of(Message.FILL_OR_KILL_ORDER_NOT_FILLABLE)));
+        verify(eventPublisher).publish(new OrderAcceptedEvent(2, 201));
+        assertThat(security.getOrderBook().getBuyQueue()).extracting(Order::getOrderId).containsExactly(101L);
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void expired_orders_are_published_as_expiries() {
+        LocalDateTime expiryTime = EngineClock.toLocalDateTime(EngineClock.current().nanos()).minusSeconds(1);
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, expiryTime.minusMinutes(1), Side.SELL, 300, 15450, 2, shareholder.getShareholderId(), 0, 0, 0, TimeInForce.GTT, expiryTime));
+
+        orderHandler.expireOrders(isin -> true);
+
+        verify(eventPublisher).publish(new OrderExpiredEvent("ABC", 1, 200));
+        verify(eventPublisher, never()).publish(any(OrderDeletedEvent.class));
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void immediate_orders_are_rejected_for_stop_limit_and_update_requests() {
+        security.getOrderBook().enqueue(new Order(100, security, Side.BUY, 300, 15400, broker1, shareholder, 0));
+        EnterOrderRq updateOrderRq = EnterOrderRq.createUpdateOrderRq(2, "ABC", 100, LocalDateTime.now(), Side.BUY, 300, 15400, 1, shareholder.getShareholderId(), 0, 0, 0);
+        updateOrderRq.setTimeInForce(TimeInForce.IOC);
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15450, 2, shareholder.getShareholderId(), 0, 0, 15000, TimeInForce.FOK));
+        orderHandler.handleEnterOrder(updateOrderRq);
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 200, List.of(Message.CANNOT_SPECIFY_TIME_IN_FORCE_FOR_A_STOP_LIMIT_ORDER)));
+        verify(eventPublisher).publish(new OrderRejectedEvent(2, 100, List.of(Message.CANNOT_CHANGE_TIME_IN_FORCE)));
+    }
+
     @Test
     void iceberg_order_behaves_normally_before_being_queued() {
         Order matchingBuyOrder = new Order(100, security, Side.BUY, 1000, 15500, broker1, shareholder, 0);
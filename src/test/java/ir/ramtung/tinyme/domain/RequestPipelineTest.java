@@ -0,0 +1,205 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AdmissionController;
+import ir.ramtung.tinyme.domain.service.Matcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.RequestPipeline;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.BatchResultEvent;
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderDeletedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderUpdatedEvent;
+import ir.ramtung.tinyme.messaging.request.BatchOperation;
+import ir.ramtung.tinyme.messaging.request.BatchRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class RequestPipelineTest {
+    private EventPublisher eventPublisher;
+    private OrderHandler orderHandler;
+    private RequestPipeline requestPipeline;
+    private BrokerRepository brokerRepository;
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        Security security = Security.builder().isin("ABC").lotSize(10).build();
+        securityRepository.addSecurity(security);
+        Security otherSecurity = Security.builder().isin("XYZ").build();
+        securityRepository.addSecurity(otherSecurity);
+        brokerRepository.addBroker(Broker.builder().brokerId(1).credit(100_000_000L).build());
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        shareholder.incPosition(otherSecurity, 100_000);
+        shareholderRepository.addShareholder(shareholder);
+        eventPublisher = mock(EventPublisher.class);
+        orderHandler = new OrderHandler(securityRepository, brokerRepository, shareholderRepository, eventPublisher, new Matcher());
+        requestPipeline = new RequestPipeline(orderHandler, 4);
+    }
+
+    @AfterEach
+    void shutdown() {
+        requestPipeline.shutdown();
+    }
+
+    @Test
+    void requests_are_handled_in_submission_order_with_stateless_rejections_in_place() {
+        for (int i = 1; i <= 20; i++)
+            requestPipeline.submit(EnterOrderRq.createNewOrderRq(i, "ABC", i, LocalDateTime.now(), Side.BUY, i % 2 == 0 ? 100 : 105, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(new DeleteOrderRq(21, "ABC", Side.BUY, 2));
+
+        InOrder inOrder = inOrder(eventPublisher);
+        for (int i = 1; i <= 20; i++) {
+            if (i % 2 == 0)
+                inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderAcceptedEvent(i, i));
+            else
+                inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderRejectedEvent(i, i, List.of(Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE)));
+        }
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(21, 2));
+    }
+
+    @Test
+    void requests_of_each_security_keep_their_order_across_lanes() {
+        requestPipeline.shutdown();
+        requestPipeline = new RequestPipeline(orderHandler, 4, 4);
+        for (int i = 1; i <= 20; i++) {
+            String isin = i % 2 == 0 ? "ABC" : "XYZ";
+            requestPipeline.submit(EnterOrderRq.createNewOrderRq(i, isin, i, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        }
+        requestPipeline.submit(new DeleteOrderRq(21, "XYZ", Side.SELL, 1));
+        requestPipeline.submit(new DeleteOrderRq(22, "ABC", Side.SELL, 2));
+
+        InOrder abcOrder = inOrder(eventPublisher);
+        for (int i = 2; i <= 20; i += 2)
+            abcOrder.verify(eventPublisher, timeout(1000)).publish(new OrderAcceptedEvent(i, i));
+        abcOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(22, 2));
+        InOrder xyzOrder = inOrder(eventPublisher);
+        for (int i = 1; i <= 20; i += 2)
+            xyzOrder.verify(eventPublisher, timeout(1000)).publish(new OrderAcceptedEvent(i, i));
+        xyzOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(21, 1));
+    }
+
+    @Test
+    void batch_operations_are_applied_in_sequence_and_answered_with_one_event() {
+        requestPipeline.shutdown();
+        requestPipeline = new RequestPipeline(orderHandler, 4, 4);
+        requestPipeline.submit(new BatchRq(30, List.of(
+                BatchOperation.enter(EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0)),
+                BatchOperation.enter(EnterOrderRq.createNewOrderRq(2, "XYZ", 2, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0)),
+                BatchOperation.delete(new DeleteOrderRq(3, "ABC", Side.SELL, 1)),
+                BatchOperation.delete(new DeleteOrderRq(4, "ABC", Side.SELL, 1)))));
+
+        verify(eventPublisher, timeout(1000)).publish(new BatchResultEvent(30, List.of(
+                new OrderAcceptedEvent(1, 1),
+                new OrderAcceptedEvent(2, 2),
+                new OrderDeletedEvent(3, 1),
+                new OrderRejectedEvent(4, 1, List.of(Message.ORDER_ID_NOT_FOUND)))));
+        verify(eventPublisher, never()).publish(new OrderAcceptedEvent(1, 1));
+    }
+
+    @Test
+    void batch_operations_pass_admission_and_count_towards_the_ingress_capacity() throws InterruptedException {
+        requestPipeline.shutdown();
+        AdmissionController admissionController = new AdmissionController(brokerRepository, 0, 0, 3, 1, 2);
+        requestPipeline = new RequestPipeline(orderHandler, admissionController, 4, 1, false, 0, 0);
+        CountDownLatch laneBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            laneBlocked.countDown();
+            release.await();
+            return null;
+        }).when(eventPublisher).publish(new OrderAcceptedEvent(1, 1));
+
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        assertThat(laneBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+        requestPipeline.submit(new BatchRq(30, List.of(
+                BatchOperation.enter(EnterOrderRq.createNewOrderRq(2, "ABC", 2, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0)),
+                BatchOperation.enter(EnterOrderRq.createNewOrderRq(3, "ABC", 3, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0)))));
+        assertThat(admissionController.getInFlight()).isEqualTo(3);
+        requestPipeline.submit(new DeleteOrderRq(40, "ABC", Side.SELL, 1));
+        assertThat(admissionController.getInFlight()).isEqualTo(3);
+        verify(eventPublisher, never()).publish(any(OrderRejectedEvent.class));
+        release.countDown();
+
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new BatchResultEvent(30, List.of(
+                new OrderAcceptedEvent(2, 2),
+                new OrderRejectedEvent(3, 3, List.of(Message.BROKER_RATE_LIMIT_EXCEEDED)))));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderRejectedEvent(40, 1, List.of(Message.ENGINE_OVERLOADED)));
+    }
+
+    @Test
+    void queued_updates_are_conflated_and_a_queued_new_and_cancel_annihilate() throws InterruptedException {
+        requestPipeline.shutdown();
+        requestPipeline = new RequestPipeline(orderHandler, 4, 1, true);
+        CountDownLatch laneBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            laneBlocked.countDown();
+            release.await();
+            return null;
+        }).when(eventPublisher).publish(new OrderAcceptedEvent(1, 1));
+
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        assertThat(laneBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+        requestPipeline.submit(EnterOrderRq.createUpdateOrderRq(2, "ABC", 1, LocalDateTime.now(), Side.SELL, 200, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(EnterOrderRq.createUpdateOrderRq(3, "ABC", 1, LocalDateTime.now(), Side.SELL, 300, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(4, "ABC", 5, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(new DeleteOrderRq(5, "ABC", Side.SELL, 5));
+        release.countDown();
+
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderRejectedEvent(2, 1, List.of(Message.ORDER_UPDATE_SUPERSEDED)));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderUpdatedEvent(3, 1));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderRejectedEvent(4, 5, List.of(Message.ORDER_CANCELLED_BEFORE_PROCESSING)));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(5, 5));
+        verify(eventPublisher, never()).publish(new OrderAcceptedEvent(4, 5));
+    }
+
+    @Test
+    void deletes_overtake_new_orders_of_other_keys_when_the_lane_is_backed_up() throws InterruptedException {
+        requestPipeline.shutdown();
+        requestPipeline = new RequestPipeline(orderHandler, 4, 1, false, 2);
+        CountDownLatch laneBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            laneBlocked.countDown();
+            release.await();
+            return null;
+        }).when(eventPublisher).publish(new OrderAcceptedEvent(1, 1));
+
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        assertThat(laneBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(2, "ABC", 10, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(EnterOrderRq.createNewOrderRq(3, "ABC", 11, LocalDateTime.now(), Side.SELL, 100, 1000, 1, 1, 0, 0, 0));
+        requestPipeline.submit(new DeleteOrderRq(4, "ABC", Side.SELL, 11));
+        requestPipeline.submit(new DeleteOrderRq(5, "ABC", Side.SELL, 1));
+        release.countDown();
+
+        InOrder inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(5, 1));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderAcceptedEvent(2, 10));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderAcceptedEvent(3, 11));
+        inOrder.verify(eventPublisher, timeout(1000)).publish(new OrderDeletedEvent(4, 11));
+    }
+}
@@ -6,6 +6,7 @@ import ir.ramtung.tinyme.domain.service.Matcher;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.SecurityRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +14,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ir.ramtung.tinyme.domain.entity.Side.BUY;
 import static ir.ramtung.tinyme.domain.entity.Side.SELL;
@@ -32,7 +35,7 @@ class SecurityTest {
 
     @BeforeEach
     void setupOrderBook() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         broker = Broker.builder().brokerId(0).credit(1_000_000L).build();
         shareholder = Shareholder.builder().shareholderId(0).build();
         shareholder.incPosition(security, 100_000);
@@ -95,7 +98,7 @@ class SecurityTest {
 
     @Test
     void increasing_iceberg_peak_size_changes_priority() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         broker = Broker.builder().credit(1_000_000L).build();
         orders = Arrays.asList(
                 new Order(1, security, BUY, 304, 15700, broker, shareholder, 0),
@@ -113,7 +116,7 @@ class SecurityTest {
 
     @Test
     void decreasing_iceberg_quantity_to_amount_larger_than_peak_size_does_not_changes_priority() {
-        security = Security.builder().build();
+        security = Security.builder().id(0).build();
         broker = Broker.builder().build();
         orders = Arrays.asList(
                 new Order(1, security, BUY, 304, 15700, broker, shareholder, 0),
@@ -130,7 +133,7 @@ class SecurityTest {
 
     @Test
     void update_iceberg_that_loses_priority_with_no_trade_works() {
-        security = Security.builder().isin("TEST").build();
+        security = Security.builder().id(0).isin("TEST").build();
         broker = Broker.builder().brokerId(1).credit(100).build();
 
         security.getOrderBook().enqueue(
@@ -146,7 +149,7 @@ class SecurityTest {
 
     @Test
     void update_iceberg_order_decrease_peak_size() {
-        security = Security.builder().isin("TEST").build();
+        security = Security.builder().id(0).isin("TEST").build();
         security.getOrderBook().enqueue(
                 new IcebergOrder(1, security, BUY, 20, 10, broker, shareholder, 10, 0)
         );
@@ -159,7 +162,7 @@ class SecurityTest {
 
     @Test
     void update_iceberg_order_price_leads_to_match_as_new_order() throws InvalidRequestException {
-        security = Security.builder().isin("TEST").build();
+        security = Security.builder().id(0).isin("TEST").build();
         shareholder.incPosition(security, 1_000);
         orders = List.of(
                 new Order(1, security, BUY, 15, 10, broker, shareholder, 0),
@@ -176,4 +179,94 @@ class SecurityTest {
         assertThat(result.requestStatus()).isEqualTo(RequestStatus.UPDATED);
         assertThat(result.trades()).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void snapshots_taken_during_matching_only_see_completed_writes() throws InterruptedException {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                security.getBookVersion().beginWrite();
+                security.getOrderBook().enqueue(new Order(100, security, BUY, 10, 15600, broker, shareholder, 0));
+                security.getOrderBook().enqueue(new Order(101, security, SELL, 10, 15790, broker, shareholder, 0));
+                security.getBookVersion().endWrite();
+                security.getBookVersion().beginWrite();
+                security.getOrderBook().removeByOrderId(BUY, 100);
+                security.getOrderBook().removeByOrderId(SELL, 101);
+                security.getBookVersion().endWrite();
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            BookSnapshot snapshot = security.snapshot();
+            assertThat(snapshot.version() % 2).isZero();
+            assertThat(snapshot.buyOrders().size() - 5).isEqualTo(snapshot.sellOrders().size() - 5).isBetween(0, 1);
+        }
+        writer.join();
+
+        BookSnapshot snapshot = security.snapshot();
+        assertThat(snapshot.buyOrders()).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(snapshot.sellOrders()).extracting(Order::getOrderId).containsExactly(6L, 7L, 8L, 9L, 10L);
+        assertThat(snapshot.inactiveBuyOrders()).isEmpty();
+    }
+
+    @Test
+    void readers_retry_without_ever_blocking_the_writer() throws InterruptedException {
+        BookVersion bookVersion = new BookVersion();
+        AtomicInteger attempts = new AtomicInteger();
+        List<Thread> writers = new ArrayList<>();
+        long version = bookVersion.read(current -> {
+            if (attempts.incrementAndGet() > 10)
+                return current;
+            Thread writer = new Thread(() -> {
+                bookVersion.beginWrite();
+                bookVersion.endWrite();
+            });
+            writers.add(writer);
+            writer.start();
+            try {
+                writer.join(5000);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return current;
+        });
+
+        assertThat(writers).hasSize(10).noneMatch(Thread::isAlive);
+        assertThat(attempts.get()).isEqualTo(11);
+        assertThat(version).isEqualTo(20);
+        assertThatThrownBy(() -> bookVersion.read(current -> {
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void repository_assigns_dense_ids_that_restart_after_clear() {
+        SecurityRepository repository = new SecurityRepository();
+        Security abc = Security.builder().isin("ABC").build();
+        Security xyz = Security.builder().isin("XYZ").build();
+        repository.addSecurity(abc);
+        repository.addSecurity(xyz);
+        assertThat(abc.getId()).isZero();
+        assertThat(xyz.getId()).isOne();
+
+        Security replacement = Security.builder().isin("ABC").build();
+        repository.addSecurity(replacement);
+        assertThat(replacement.getId()).isZero();
+        assertThat(repository.findSecurityById(0)).isSameAs(replacement);
+
+        repository.clear();
+        Security reloaded = Security.builder().isin("XYZ").build();
+        repository.addSecurity(reloaded);
+        assertThat(reloaded.getId()).isZero();
+        assertThat(repository.findAllSecurities()).containsExactly(reloaded);
+    }
+
+    @Test
+    void positions_on_a_security_without_an_id_are_rejected() {
+        Security unassigned = Security.builder().isin("ABC").build();
+        Shareholder holder = Shareholder.builder().build();
+
+        assertThat(unassigned.getId()).isEqualTo(Security.UNASSIGNED_ID);
+        assertThatThrownBy(() -> holder.incPosition(unassigned, 100)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> holder.hasEnoughPositionsOn(unassigned, 0)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -58,7 +58,7 @@ public class StopLimitTest {
 
     @BeforeEach
     void setup() {
-        security = Security.builder().isin("ABC").lastTransactionPrice(5).build();
+        security = Security.builder().id(0).isin("ABC").lastTransactionPrice(5).build();
         broker = Broker.builder().brokerId(1).credit(1_000_000L).build();
         shareholder = Shareholder.builder().shareholderId(0).build();
         shareholder.incPosition(security, 100_000_000);
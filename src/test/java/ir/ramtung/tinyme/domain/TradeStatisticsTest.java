@@ -0,0 +1,83 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.EngineClock;
+import ir.ramtung.tinyme.domain.service.ManualEngineClock;
+import ir.ramtung.tinyme.domain.service.Matcher;
+import ir.ramtung.tinyme.domain.service.TradingSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeStatisticsTest {
+    private static final long START = 10_000_000_000L;
+    private final EngineClock originalClock = EngineClock.current();
+    private final TradingSession originalSession = TradingSession.current();
+    private final ManualEngineClock clock = new ManualEngineClock(START);
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private final Matcher matcher = new Matcher();
+
+    @BeforeEach
+    void setup() {
+        EngineClock.use(clock);
+        security = Security.builder().id(0).build();
+        broker = Broker.builder().credit(100_000_000L).build();
+        shareholder = Shareholder.builder().build();
+        shareholder.incPosition(security, 100_000);
+        security.getOrderBook().enqueue(new Order(1, security, Side.BUY, 304, 15700, broker, shareholder, 0));
+        security.getOrderBook().enqueue(new Order(2, security, Side.BUY, 43, 15500, broker, shareholder, 0));
+        security.getOrderBook().enqueue(new Order(3, security, Side.BUY, 445, 15450, broker, shareholder, 0));
+    }
+
+    @AfterEach
+    void restoreClock() {
+        EngineClock.use(originalClock);
+        TradingSession.use(originalSession);
+    }
+
+    @Test
+    void trades_are_aggregated_into_second_minute_and_session_bars() {
+        matcher.execute(new Order(11, security, Side.SELL, 100, 15600, broker, shareholder, 0));
+        clock.advance(1_500_000_000L);
+        matcher.execute(new Order(12, security, Side.SELL, 400, 15450, broker, shareholder, 0));
+
+        TradeStatistics statistics = security.getTradeStatistics();
+        assertThat(statistics.bar(TradeStatistics.Resolution.SECOND, START))
+                .isEqualTo(new TradeStatistics.Bar(START, 15700, 15700, 15700, 15700, 100, 1_570_000));
+        assertThat(statistics.bar(TradeStatistics.Resolution.SECOND, START + 1_000_000_000L))
+                .isEqualTo(new TradeStatistics.Bar(START + 1_000_000_000L, 15700, 15700, 15450, 15450, 400, 15700L * 204 + 15500 * 43 + 15450 * 153));
+        assertThat(statistics.bar(TradeStatistics.Resolution.SECOND, START + 2_000_000_000L)).isNull();
+
+        TradeStatistics.Bar session = statistics.session();
+        assertThat(session.volume()).isEqualTo(500);
+        assertThat(session.low()).isEqualTo(15450);
+        assertThat(session.close()).isEqualTo(15450);
+        assertThat(session.vwap()).isEqualTo((15700.0 * 304 + 15500 * 43 + 15450 * 153) / 500);
+        assertThat(statistics.bar(TradeStatistics.Resolution.MINUTE, START)).isEqualTo(new TradeStatistics.Bar(0, 15700, 15700, 15450, 15450, 500, session.turnover()));
+    }
+
+    @Test
+    void the_session_bar_restarts_after_the_configured_session_close() {
+        TradingSession.use(new TradingSession(LocalTime.of(12, 30)));
+        long beforeClose = EngineClock.toEpochNanos(LocalDateTime.of(2024, 1, 1, 12, 0));
+        clock.set(beforeClose);
+        matcher.execute(new Order(11, security, Side.SELL, 100, 15600, broker, shareholder, 0));
+        assertThat(security.getTradeStatistics().session().volume()).isEqualTo(100);
+
+        clock.set(EngineClock.toEpochNanos(LocalDateTime.of(2024, 1, 1, 12, 30)));
+        assertThat(security.getTradeStatistics().session()).isNull();
+        matcher.execute(new Order(12, security, Side.SELL, 50, 15600, broker, shareholder, 0));
+
+        TradeStatistics.Bar session = security.getTradeStatistics().session();
+        assertThat(session.start()).isEqualTo(clock.nanos());
+        assertThat(session.volume()).isEqualTo(50);
+        assertThat(security.getTradeStatistics().bar(TradeStatistics.Resolution.SESSION, beforeClose)).isNull();
+    }
+}
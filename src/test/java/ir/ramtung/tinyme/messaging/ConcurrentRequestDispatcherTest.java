@@ -0,0 +1,56 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jms.annotation.EnableJms;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "requestConcurrency=4")
+@ActiveProfiles("embedded")
+@EnableJms
+public class ConcurrentRequestDispatcherTest {
+    private static final List<String> ISINS = List.of("ABC", "XYZ", "QRS");
+    private static final int ORDERS_PER_SECURITY = 50;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    @MockBean
+    private OrderHandler mockOrderHandler;
+    @Value("${requestQueue}")
+    private String requestQueue;
+
+    @Test
+    void grouped_requests_of_a_security_reach_the_handler_in_order_under_concurrent_consumers() {
+        for (int i = 1; i <= ORDERS_PER_SECURITY; i++)
+            for (String isin : ISINS) {
+                EnterOrderRq rq = EnterOrderRq.createNewOrderRq(i, isin, i, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0, 0, 0);
+                jmsTemplate.convertAndSend(requestQueue, rq, message -> {
+                    message.setStringProperty(RequestDispatcher.GROUP_ID_PROPERTY, isin);
+                    return message;
+                });
+            }
+
+        ArgumentCaptor<EnterOrderRq> handled = ArgumentCaptor.forClass(EnterOrderRq.class);
+        verify(mockOrderHandler, timeout(10000).times(ISINS.size() * ORDERS_PER_SECURITY)).handleEnterOrder(handled.capture(), any());
+        for (String isin : ISINS)
+            assertThat(handled.getAllValues().stream().filter(rq -> rq.getSecurityIsin().equals(isin)).map(EnterOrderRq::getOrderId))
+                    .isSorted()
+                    .hasSize(ORDERS_PER_SECURITY);
+    }
+}
@@ -0,0 +1,110 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.MarketDepth;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.BestBidAndOfferEvent;
+import ir.ramtung.tinyme.messaging.event.DepthSnapshotEvent;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import ir.ramtung.tinyme.messaging.event.PriceLevelUpdatedEvent;
+import ir.ramtung.tinyme.messaging.event.TradeStatisticsEvent;
+import ir.ramtung.tinyme.messaging.marketdata.ConflatingPublisher;
+import ir.ramtung.tinyme.messaging.marketdata.MarketDataForwarder;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ConflatingPublisherTest {
+    @Test
+    void a_lagging_subscriber_receives_only_the_latest_value_of_each_key() throws InterruptedException {
+        ConflatingPublisher publisher = new ConflatingPublisher(mock(EventPublisher.class));
+        CountDownLatch firstReceived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch allReceived = new CountDownLatch(3);
+        List<Event> received = new CopyOnWriteArrayList<>();
+        ConflatingPublisher.Subscription subscription = publisher.subscribe("slow", event -> {
+            received.add(event);
+            firstReceived.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            allReceived.countDown();
+        });
+
+        BestBidAndOfferEvent first = new BestBidAndOfferEvent("ABC", new PriceLevel(100, 10, 1), null);
+        BestBidAndOfferEvent second = new BestBidAndOfferEvent("ABC", new PriceLevel(100, 20, 2), null);
+        BestBidAndOfferEvent third = new BestBidAndOfferEvent("ABC", new PriceLevel(101, 5, 1), null);
+        PriceLevelUpdatedEvent level = new PriceLevelUpdatedEvent("ABC", 7, Side.BUY, MarketDepth.Action.ADD, 101, 5, 1);
+        publisher.onEvent(first);
+        assertThat(firstReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.onEvent(second);
+        publisher.onEvent(third);
+        publisher.onEvent(level);
+        publisher.onEvent(new OrderAcceptedEvent(1, 1));
+        release.countDown();
+
+        assertThat(allReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(first, third, level);
+        assertThat(subscription.getConflated()).isEqualTo(1);
+        subscription.close();
+    }
+
+    @Test
+    void a_conflated_update_is_delivered_after_the_snapshot_it_follows() throws InterruptedException {
+        ConflatingPublisher publisher = new ConflatingPublisher(mock(EventPublisher.class));
+        CountDownLatch firstReceived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch allReceived = new CountDownLatch(3);
+        List<Event> received = new CopyOnWriteArrayList<>();
+        ConflatingPublisher.Subscription subscription = publisher.subscribe("slow", event -> {
+            received.add(event);
+            firstReceived.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            allReceived.countDown();
+        });
+
+        BestBidAndOfferEvent bbo = new BestBidAndOfferEvent("ABC", new PriceLevel(100, 10, 1), null);
+        PriceLevelUpdatedEvent before = new PriceLevelUpdatedEvent("ABC", 5, Side.BUY, MarketDepth.Action.ADD, 100, 10, 1);
+        DepthSnapshotEvent snapshot = new DepthSnapshotEvent("ABC", 6, List.of(new PriceLevel(100, 10, 1)), List.of());
+        PriceLevelUpdatedEvent after = new PriceLevelUpdatedEvent("ABC", 7, Side.BUY, MarketDepth.Action.CHANGE, 100, 4, 1);
+        publisher.onEvent(bbo);
+        assertThat(firstReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.onEvent(before);
+        publisher.onEvent(snapshot);
+        publisher.onEvent(after);
+        release.countDown();
+
+        assertThat(allReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(bbo, snapshot, after);
+        subscription.close();
+    }
+
+    @Test
+    void the_forwarder_delivers_trade_statistics_to_the_market_data_queue() {
+        ConflatingPublisher publisher = new ConflatingPublisher(mock(EventPublisher.class));
+        JmsTemplate jmsTemplate = mock(JmsTemplate.class);
+        MarketDataForwarder forwarder = new MarketDataForwarder(publisher, jmsTemplate, "MD");
+        TradeStatisticsEvent statistics = new TradeStatisticsEvent("ABC", 100, 110, 95, 105, 30, 3100);
+        assertThat(ConflatingPublisher.conflationKey(statistics)).isEqualTo(List.of("STATISTICS", "ABC"));
+
+        publisher.onEvent(statistics);
+        verify(jmsTemplate, timeout(5000)).convertAndSend("MD", statistics);
+        forwarder.getSubscription().close();
+    }
+}
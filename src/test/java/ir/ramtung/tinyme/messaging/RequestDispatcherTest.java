@@ -15,6 +15,8 @@ import org.springframework.jms.core.JmsTemplate;
 
 import java.time.LocalDateTime;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
@@ -42,6 +44,6 @@ public class RequestDispatcherTest {
     void request_channel_integration_works() {
         EnterOrderRq rq = EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0, 0, 0);
         jmsTemplate.convertAndSend(requestQueue, rq);
-        verify(mockOrderHandler, timeout(1000)).handleEnterOrder(rq);
+        verify(mockOrderHandler, timeout(1000)).handleEnterOrder(eq(rq), any());
     }
 }
@@ -0,0 +1,78 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.RequestPipeline;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import jakarta.jms.JMSException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestGroupingTest {
+    private RequestPipeline requestPipeline;
+    private MessageConverter messageConverter;
+
+    @BeforeEach
+    void setup() {
+        requestPipeline = mock(RequestPipeline.class);
+        messageConverter = mock(MessageConverter.class);
+    }
+
+    private jakarta.jms.Message messageOf(Object request, String groupId) throws JMSException {
+        jakarta.jms.Message message = mock(jakarta.jms.Message.class);
+        when(message.getStringProperty(RequestDispatcher.GROUP_ID_PROPERTY)).thenReturn(groupId);
+        when(messageConverter.fromMessage(message)).thenReturn(request);
+        return message;
+    }
+
+    private EnterOrderRq orderOn(String isin) {
+        return EnterOrderRq.createNewOrderRq(1, isin, 200, LocalDateTime.now(), Side.SELL, 300, 15450, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void concurrent_consumers_accept_requests_grouped_by_their_security() throws JMSException {
+        RequestDispatcher dispatcher = new RequestDispatcher(requestPipeline, messageConverter, "2-4");
+        EnterOrderRq rq = orderOn("ABC");
+        dispatcher.receiveRequest(messageOf(rq, "ABC"));
+        verify(requestPipeline).submit(rq);
+        verify(requestPipeline, never()).reject(anyString(), anyLong(), anyLong(), anyString());
+    }
+
+    @Test
+    void concurrent_consumers_reject_ungrouped_requests_through_the_security_lane() throws JMSException {
+        RequestDispatcher dispatcher = new RequestDispatcher(requestPipeline, messageConverter, "4");
+        EnterOrderRq rq = orderOn("ABC");
+        dispatcher.receiveRequest(messageOf(rq, null));
+        dispatcher.receiveRequest(messageOf(orderOn("XYZ"), "ABC"));
+        verify(requestPipeline).reject("ABC", 1, 200, Message.UNGROUPED_REQUEST);
+        verify(requestPipeline).reject("XYZ", 1, 200, Message.UNGROUPED_REQUEST);
+        verify(requestPipeline, never()).submit(any(EnterOrderRq.class));
+    }
+
+    @Test
+    void ungrouped_state_changes_are_dropped_under_concurrent_consumers() throws JMSException {
+        RequestDispatcher dispatcher = new RequestDispatcher(requestPipeline, messageConverter, "4");
+        dispatcher.receiveRequest(messageOf(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION), null));
+        verify(requestPipeline, never()).submit(any(ChangeMatchingStateRq.class));
+    }
+
+    @Test
+    void a_single_consumer_needs_no_grouping() throws JMSException {
+        RequestDispatcher dispatcher = new RequestDispatcher(requestPipeline, messageConverter, "1");
+        EnterOrderRq rq = orderOn("ABC");
+        dispatcher.receiveRequest(messageOf(rq, null));
+        verify(requestPipeline).submit(rq);
+    }
+}
@@ -0,0 +1,214 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.MarketDepth;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.entity.TimeInForce;
+import ir.ramtung.tinyme.domain.service.RequestPipeline;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.shm.FrameCodec;
+import ir.ramtung.tinyme.messaging.shm.ShmGateway;
+import ir.ramtung.tinyme.messaging.shm.ShmRingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ShmRingBufferTest {
+    @TempDir
+    Path directory;
+
+    private ByteBuffer frame() {
+        return ByteBuffer.allocateDirect(FrameCodec.FRAME_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    @Test
+    void ring_rejects_offers_when_full_and_wraps_around() throws IOException {
+        try (ShmRingBuffer ring = ShmRingBuffer.open(directory.resolve("ring"), 4, FrameCodec.FRAME_SIZE)) {
+            ByteBuffer frame = frame();
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 4; i++) {
+                    frame.putLong(0, round * 10 + i);
+                    assertThat(ring.offer(frame)).isTrue();
+                }
+                assertThat(ring.offer(frame)).isFalse();
+                for (int i = 0; i < 4; i++) {
+                    assertThat(ring.poll(frame)).isTrue();
+                    assertThat(frame.getLong(0)).isEqualTo(round * 10 + i);
+                }
+                assertThat(ring.poll(frame)).isFalse();
+            }
+        }
+    }
+
+    @Test
+    void a_second_mapping_of_the_same_file_sees_published_frames() throws IOException {
+        Path path = directory.resolve("ring");
+        try (ShmRingBuffer producer = ShmRingBuffer.open(path, 8, FrameCodec.FRAME_SIZE);
+             ShmRingBuffer consumer = ShmRingBuffer.open(path, 8, FrameCodec.FRAME_SIZE)) {
+            EnterOrderRq rq = EnterOrderRq.createNewOrderRq(1, "ABC", 10, LocalDateTime.of(2024, 1, 1, 9, 0), Side.BUY, 300, 15450, 2, 3, 100, 0, 0, TimeInForce.IOC);
+            ByteBuffer frame = frame();
+            FrameCodec.encode(rq, frame);
+            producer.offer(frame);
+
+            ByteBuffer received = frame();
+            assertThat(consumer.poll(received)).isTrue();
+            assertThat(FrameCodec.decodeEnterOrderRq(received)).isEqualTo(rq);
+        }
+    }
+
+    @Test
+    void codec_round_trips_delete_requests_and_multi_part_events() {
+        ByteBuffer frame = frame();
+        DeleteOrderRq deleteOrderRq = new DeleteOrderRq(5, "ABC", Side.SELL, 7, LocalDateTime.of(2024, 1, 1, 9, 0));
+        FrameCodec.encode(deleteOrderRq, frame);
+        assertThat(FrameCodec.type(frame)).isEqualTo(FrameCodec.DELETE_ORDER);
+        assertThat(FrameCodec.decodeDeleteOrderRq(frame)).isEqualTo(deleteOrderRq);
+
+        OrderRejectedEvent rejected = new OrderRejectedEvent(1, 2, List.of(Message.INVALID_ORDER_ID, Message.UNKNOWN_BROKER_ID));
+        FrameCodec.encode(rejected, frame, f -> assertThat(FrameCodec.decodeEvent(f)).isEqualTo(rejected));
+
+        List<TradeDTO> trades = List.of(new TradeDTO("ABC", 100, 5, 1, 2), new TradeDTO("ABC", 101, 6, 1, 3));
+        List<Event> decoded = new ArrayList<>();
+        FrameCodec.encode(new OrderExecutedEvent(1, 2, trades), frame, f -> {
+            assertThat(FrameCodec.parts(f)).isEqualTo(2);
+            decoded.add(FrameCodec.decodeEvent(f));
+        });
+        assertThat(decoded).extracting(event -> ((OrderExecutedEvent) event).getTrades().get(0)).isEqualTo(trades);
+    }
+
+    @Test
+    void codec_round_trips_market_data_batches_and_expiries() {
+        ByteBuffer frame = frame();
+        List<Event> decoded = new ArrayList<>();
+        Consumer<ByteBuffer> decoder = f -> decoded.add(FrameCodec.decodeEvent(f));
+
+        PriceLevelUpdatedEvent levelUpdated = new PriceLevelUpdatedEvent("ABC", 3, Side.SELL, MarketDepth.Action.CHANGE, 15450, 300, 2);
+        BestBidAndOfferEvent bestBidAndOffer = new BestBidAndOfferEvent("ABC", new PriceLevel(15400, 100, 1), null);
+        OrderExpiredEvent expired = new OrderExpiredEvent("ABC", 5, 7);
+        TradeStatisticsEvent statistics = new TradeStatisticsEvent("ABC", 100, 110, 95, 105, 30, 3100);
+        assertThat(FrameCodec.encode(levelUpdated, frame, decoder)).isTrue();
+        assertThat(FrameCodec.encode(bestBidAndOffer, frame, decoder)).isTrue();
+        assertThat(FrameCodec.encode(expired, frame, decoder)).isTrue();
+        assertThat(FrameCodec.encode(statistics, frame, decoder)).isTrue();
+        assertThat(decoded).containsExactly(levelUpdated, bestBidAndOffer, expired, statistics);
+
+        decoded.clear();
+        List<PriceLevel> bids = List.of(new PriceLevel(15400, 100, 1), new PriceLevel(15300, 50, 2));
+        List<PriceLevel> asks = List.of(new PriceLevel(15500, 70, 1));
+        FrameCodec.encode(new DepthSnapshotEvent("ABC", 9, bids, asks), frame, decoder);
+        assertThat(decoded).hasSize(3);
+        assertThat(decoded).flatExtracting(event -> ((DepthSnapshotEvent) event).getBids()).isEqualTo(bids);
+        assertThat(decoded).flatExtracting(event -> ((DepthSnapshotEvent) event).getAsks()).isEqualTo(asks);
+        assertThat(decoded).extracting(event -> ((DepthSnapshotEvent) event).getSequence()).containsOnly(9L);
+
+        decoded.clear();
+        FrameCodec.encode(new DepthSnapshotEvent("ABC", 10, List.of(), List.of()), frame, decoder);
+        assertThat(decoded).containsExactly(new DepthSnapshotEvent("ABC", 10, List.of(), List.of()));
+
+        decoded.clear();
+        List<Event> operationEvents = List.of(new OrderAcceptedEvent(4, 8), new OrderDeletedEvent(4, 9));
+        FrameCodec.encode(new BatchResultEvent(RequestOrigin.SHM.tag(4), operationEvents), frame, f -> {
+            if (FrameCodec.type(f) == FrameCodec.BATCH_RESULT)
+                assertThat(FrameCodec.parts(f)).isEqualTo(2);
+            decoder.accept(f);
+        });
+        assertThat(decoded).containsExactly(new BatchResultEvent(4, List.of()), operationEvents.get(0), operationEvents.get(1));
+    }
+
+    @Test
+    void responses_to_shared_memory_requests_bypass_jms() {
+        JmsTemplate jmsTemplate = mock(JmsTemplate.class);
+        EventPublisher eventPublisher = new EventPublisher(jmsTemplate);
+        OrderAcceptedEvent shmAccepted = new OrderAcceptedEvent(RequestOrigin.SHM.tag(5), 8);
+        OrderAcceptedEvent jmsAccepted = new OrderAcceptedEvent(5, 8);
+        TradeEvent trade = new TradeEvent("ABC", 100, 5, 1, 2);
+        eventPublisher.publish(shmAccepted);
+        eventPublisher.publish(jmsAccepted);
+        eventPublisher.publish(trade);
+        verify(jmsTemplate, never()).convertAndSend(nullable(String.class), eq(shmAccepted));
+        verify(jmsTemplate).convertAndSend(nullable(String.class), eq(jmsAccepted));
+        verify(jmsTemplate).convertAndSend(nullable(String.class), eq(trade));
+        assertThat(RequestOrigin.of(shmAccepted)).isEqualTo(RequestOrigin.SHM);
+        assertThat(RequestOrigin.of(trade)).isNull();
+    }
+
+    @Test
+    void every_message_has_a_distinct_stable_wire_code() throws IllegalAccessException {
+        Set<Short> codes = new HashSet<>();
+        for (Field field : Message.class.getFields())
+            assertThat(codes.add(FrameCodec.messageCode((String) field.get(null)))).isTrue();
+        assertThat(codes).doesNotContain((short) -1);
+        assertThat(FrameCodec.messageCode(Message.INVALID_ORDER_ID)).isEqualTo((short) 0);
+        assertThat(FrameCodec.messageCode(Message.BROKER_RATE_LIMIT_EXCEEDED)).isEqualTo((short) 27);
+    }
+
+    @Test
+    void decoding_rejects_out_of_range_enum_bytes() {
+        int sideOffset = 1, timeInForceOffset = 2;
+        ByteBuffer frame = frame();
+        FrameCodec.encode(EnterOrderRq.createNewOrderRq(1, "ABC", 10, LocalDateTime.of(2024, 1, 1, 9, 0), Side.BUY, 300, 15450, 2, 3, 0, 0, 0), frame);
+        frame.put(timeInForceOffset, (byte) TimeInForce.values().length);
+        assertThatThrownBy(() -> FrameCodec.decodeEnterOrderRq(frame)).isInstanceOf(IllegalArgumentException.class);
+        frame.put(timeInForceOffset, (byte) 0);
+        frame.put(sideOffset, (byte) 7);
+        assertThatThrownBy(() -> FrameCodec.decodeEnterOrderRq(frame)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gateway_answers_only_its_own_requests_and_drops_responses_when_the_ring_is_full() throws Exception {
+        EventPublisher eventPublisher = mock(EventPublisher.class);
+        Path requestPath = directory.resolve("rq"), responsePath = directory.resolve("rs");
+        ShmGateway gateway = new ShmGateway(mock(RequestPipeline.class), eventPublisher, requestPath.toString(), responsePath.toString(), 4);
+        gateway.start();
+        try (ShmRingBuffer requests = ShmRingBuffer.open(requestPath, 4, FrameCodec.FRAME_SIZE);
+             ShmRingBuffer responses = ShmRingBuffer.open(responsePath, 4, FrameCodec.FRAME_SIZE)) {
+            ArgumentCaptor<Consumer<Event>> listener = ArgumentCaptor.forClass(Consumer.class);
+            verify(eventPublisher).addListener(listener.capture());
+
+            ByteBuffer frame = frame();
+            FrameCodec.encode(new DeleteOrderRq(5, "ABC", Side.SELL, 7, null), frame);
+            frame.put(0, (byte) 99);
+            requests.offer(frame);
+            OrderRejectedEvent rejected = new OrderRejectedEvent(RequestOrigin.SHM.tag(5), 7, List.of(Message.MALFORMED_REQUEST));
+            verify(eventPublisher, timeout(5000)).publish(rejected);
+
+            TradeEvent trade = new TradeEvent("ABC", 100, 5, 1, 2);
+            listener.getValue().accept(new OrderAcceptedEvent(5, 8));
+            listener.getValue().accept(trade);
+            listener.getValue().accept(rejected);
+            assertThat(responses.poll(frame)).isTrue();
+            assertThat(FrameCodec.decodeEvent(frame)).isEqualTo(trade);
+            assertThat(responses.poll(frame)).isTrue();
+            assertThat(FrameCodec.decodeEvent(frame)).isEqualTo(new OrderRejectedEvent(5, 7, List.of(Message.MALFORMED_REQUEST)));
+            assertThat(responses.poll(frame)).isFalse();
+
+            for (int i = 0; i < 6; i++)
+                listener.getValue().accept(rejected);
+            assertThat(gateway.getDroppedResponses()).isEqualTo(2);
+        } finally {
+            gateway.stop();
+        }
+    }
+}